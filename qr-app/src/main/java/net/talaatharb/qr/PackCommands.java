@@ -0,0 +1,82 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class PackCommands {
+
+	static final String APPEND_FLAG = "--append";
+	private static final HexFormat HEX = HexFormat.of();
+
+	// pack-build <pack> <payloads> [--append], one payload per line
+	static void build(Path pack, Path payloads, boolean append) throws IOException {
+		int added = 0;
+		try (var writer = append ? QRPackWriter.append(pack) : QRPackWriter.create(pack);
+				var lines = Files.lines(payloads)) {
+			for (var iterator = lines.iterator(); iterator.hasNext();) {
+				String payload = iterator.next();
+				if (!payload.isBlank()) {
+					writer.add(payload);
+					added++;
+				}
+			}
+		}
+		log.info("Added {} codes to {}", added, pack);
+	}
+
+	// pack-list <pack>
+	static void list(Path pack) throws IOException {
+		var reader = QRPackReader.open(pack);
+		for (int i = 0; i < reader.size(); i++) {
+			log.info("{} offset={} length={}", HEX.toHexDigits(reader.hash(i)), reader.offset(i), reader.length(i));
+		}
+		log.info("{} entries in {}", reader.size(), pack);
+	}
+
+	// pack-extract <pack> <directory> [payload...], extracts everything when no
+	// payload is given
+	static void extract(Path pack, Path directory, String[] payloads) throws IOException {
+		var reader = QRPackReader.open(pack);
+		Files.createDirectories(directory);
+		if (payloads.length == 0) {
+			for (int i = 0; i < reader.size(); i++) {
+				write(directory, reader.hash(i), reader.image(i));
+			}
+			log.info("Extracted {} images to {}", reader.size(), directory);
+			return;
+		}
+		for (String payload : payloads) {
+			long hash = PayloadHash.of(payload);
+			var image = reader.find(hash);
+			if (image == null) {
+				log.warn("No image for payload: {}", payload);
+			} else {
+				write(directory, hash, image);
+			}
+		}
+	}
+
+	static Path imagePath(Path directory, long hash) {
+		return directory.resolve(HEX.toHexDigits(hash) + ".png");
+	}
+
+	private static void write(Path directory, long hash, ByteBuffer image) throws IOException {
+		try (var channel = FileChannel.open(imagePath(directory, hash), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (image.hasRemaining()) {
+				channel.write(image);
+			}
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package net.talaatharb.qr;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -7,7 +11,78 @@ public class QRApplication {
 	
 	private static final double NANO_TO_S = 1000000000.0;
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length == 0) {
+			generateSample();
+			return;
+		}
+		if (StartupCommands.FIRST_CODE.equals(args[0])) {
+			// Kept off the timed path below so startup runs only pay for the code
+			StartupCommands.firstCode();
+			return;
+		}
+
+		long startTime = System.nanoTime();
+		switch (args[0]) {
+			case "pack-build":
+				requireArguments(args, 3);
+				PackCommands.build(Path.of(args[1]), Path.of(args[2]),
+						args.length > 3 && PackCommands.APPEND_FLAG.equals(args[3]));
+				break;
+			case "pack-list":
+				requireArguments(args, 2);
+				PackCommands.list(Path.of(args[1]));
+				break;
+			case "pack-extract":
+				requireArguments(args, 3);
+				PackCommands.extract(Path.of(args[1]), Path.of(args[2]), Arrays.copyOfRange(args, 3, args.length));
+				break;
+			case "print":
+				requireArguments(args, 2);
+				TextCommands.print(Path.of(args[1]), args.length > 2 && TextCommands.ANSI_FLAG.equals(args[2]));
+				break;
+			case "shard-run":
+				requireArguments(args, 5);
+				ShardCommands.run(Path.of(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+						Path.of(args[4]));
+				break;
+			case "shard-merge":
+				requireArguments(args, 4);
+				var failed = ShardCommands.merge(Path.of(args[1]), Integer.parseInt(args[2]), Path.of(args[3]));
+				if (!failed.isEmpty()) {
+					throw new IllegalStateException("Incomplete shards " + failed + ", listed in "
+							+ Path.of(args[3]).resolve(ShardCommands.RERUN_FILE));
+				}
+				break;
+			case "startup-benchmark":
+				requireArguments(args, 2);
+				StartupCommands.benchmark(Integer.parseInt(args[1]), args.length > 2 ? Path.of(args[2]) : null);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown command: " + args[0] + System.lineSeparator() + usage());
+		}
+		log.info("It took {} seconds", (System.nanoTime() - startTime) / NANO_TO_S);
+	}
+
+	private static void requireArguments(String[] args, int count) {
+		if (args.length < count) {
+			throw new IllegalArgumentException("Missing arguments for " + args[0] + System.lineSeparator() + usage());
+		}
+	}
+
+	private static String usage() {
+		return String.join(System.lineSeparator(), "Usage:",
+				"  pack-build <pack> <payloads-file> [--append]",
+				"  pack-list <pack>",
+				"  pack-extract <pack> <output-directory> [payload...]",
+				"  print <payloads-file> [--ansi]",
+				"  shard-run <payloads-file> <shard> <shard-count> <output-directory>",
+				"  shard-merge <payloads-file> <shard-count> <output-directory>",
+				"  first-code",
+				"  startup-benchmark <runs> [appcds-archive]");
+	}
+
+	private static void generateSample() {
 		String text = "Hello World";
 		
 		long startTime = System.nanoTime();
@@ -0,0 +1,246 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Sharded batch generation: every worker reads the same payloads file and keeps
+// the payloads whose hash falls into its shard, so shards are disjoint and
+// reproducible without any coordination. A shard's pack is moved into place
+// before its manifest, which is written last and therefore marks the shard done
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ShardCommands {
+
+	static final String RERUN_FILE = "rerun.txt";
+	static final String MERGE_MANIFEST = "merge.manifest";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final int CHECKSUM_BUFFER_SIZE = 1 << 20;
+
+	static int shardOf(CharSequence payload, int shardCount) {
+		return (int) Long.remainderUnsigned(PayloadHash.spread(PayloadHash.of(payload)), shardCount);
+	}
+
+	static Path packPath(Path directory, int shard, int shardCount) {
+		return directory.resolve(shardName(shard, shardCount) + ".qrpack");
+	}
+
+	static Path manifestPath(Path directory, int shard, int shardCount) {
+		return directory.resolve(shardName(shard, shardCount) + ".manifest");
+	}
+
+	static Path rejectsPath(Path directory, int shard, int shardCount) {
+		return directory.resolve(shardName(shard, shardCount) + ".rejects");
+	}
+
+	// shard-run <payloads-file> <shard> <shard-count> <output-directory>.
+	// Payloads the generator cannot encode are listed in the shard's rejects
+	// file, one per line, instead of failing the whole shard
+	static void run(Path payloads, int shard, int shardCount, Path directory) throws IOException {
+		if (shardCount <= 0 || shard < 0 || shard >= shardCount) {
+			throw new IllegalArgumentException("Shard must be in [0, " + shardCount + ")");
+		}
+		Files.createDirectories(directory);
+		Path pack = packPath(directory, shard, shardCount);
+		Path rejects = rejectsPath(directory, shard, shardCount);
+
+		int rejected = 0;
+		QRPackWriter writer = null;
+		try {
+			writer = QRPackWriter.create(temporary(pack));
+			try (var packWriter = writer; var lines = Files.lines(payloads);
+					var rejectWriter = Files.newBufferedWriter(temporary(rejects))) {
+				for (var iterator = lines.iterator(); iterator.hasNext();) {
+					String payload = iterator.next();
+					if (payload.isBlank() || shardOf(payload, shardCount) != shard) {
+						continue;
+					}
+					try {
+						packWriter.add(payload);
+					} catch (UnsupportedOperationException e) {
+						log.debug("Shard {}: rejected payload {}", shard, payload);
+						rejectWriter.write(payload);
+						rejectWriter.newLine();
+						rejected++;
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// A half-written shard must not linger next to the real output
+			for (Path path : List.of(temporary(pack), temporary(rejects))) {
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+			}
+			throw e;
+		}
+		int entries = writer.size(); // duplicate payloads are stored once
+		Files.move(temporary(pack), pack, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.move(temporary(rejects), rejects, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		var manifest = new Properties();
+		manifest.setProperty("shard", Integer.toString(shard));
+		manifest.setProperty("shards", Integer.toString(shardCount));
+		manifest.setProperty("input", Long.toHexString(checksum(payloads)));
+		manifest.setProperty("entries", Integer.toString(entries));
+		manifest.setProperty("pack", pack.getFileName().toString());
+		manifest.setProperty("pack.size", Long.toString(Files.size(pack)));
+		manifest.setProperty("pack.checksum", Long.toHexString(checksum(pack)));
+		manifest.setProperty("rejected", Integer.toString(rejected));
+		manifest.setProperty("rejects", rejects.getFileName().toString());
+		manifest.setProperty("rejects.checksum", Long.toHexString(checksum(rejects)));
+		write(manifest, manifestPath(directory, shard, shardCount));
+		log.info("Shard {} of {}: {} codes in {}, {} payloads rejected", shard, shardCount, entries, pack, rejected);
+	}
+
+	// shard-merge <payloads-file> <shard-count> <output-directory>: checks every
+	// shard in turn at the cost of one pass over the payloads per shard, and
+	// drops each pack's reader once its shard is checked. The JDK cannot unmap
+	// explicitly, so those mappings are released as the GC clears them rather
+	// than all being held for the whole merge. Failed shards are listed in
+	// rerun.txt, one index per line
+	static List<Integer> merge(Path payloads, int shardCount, Path directory) throws IOException {
+		if (shardCount <= 0) {
+			throw new IllegalArgumentException("Shard count must be positive");
+		}
+		String input = Long.toHexString(checksum(payloads));
+		List<Integer> failed = new ArrayList<>();
+		long entries = 0;
+		long rejected = 0;
+		for (int shard = 0; shard < shardCount; shard++) {
+			var manifest = verify(payloads, directory, shard, shardCount, input);
+			if (manifest == null) {
+				failed.add(shard);
+			} else {
+				entries += Long.parseLong(manifest.getProperty("entries"));
+				rejected += Long.parseLong(manifest.getProperty("rejected"));
+			}
+		}
+
+		Path rerun = directory.resolve(RERUN_FILE);
+		if (failed.isEmpty()) {
+			Files.deleteIfExists(rerun);
+			var manifest = new Properties();
+			manifest.setProperty("shards", Integer.toString(shardCount));
+			manifest.setProperty("input", input);
+			manifest.setProperty("entries", Long.toString(entries));
+			manifest.setProperty("rejected", Long.toString(rejected));
+			write(manifest, directory.resolve(MERGE_MANIFEST));
+			log.info("All {} shards complete, {} codes, {} payloads rejected", shardCount, entries, rejected);
+		} else {
+			Files.deleteIfExists(directory.resolve(MERGE_MANIFEST));
+			var indices = new ArrayList<String>();
+			for (int shard : failed) {
+				indices.add(Integer.toString(shard));
+				log.warn("Re-run with: shard-run {} {} {} {}", payloads, shard, shardCount, directory);
+			}
+			Files.write(rerun, indices);
+		}
+		return failed;
+	}
+
+	// The shard's manifest when it matches this input, its pack and rejects file,
+	// and every payload of the shard is either in the pack or rejected; null
+	// otherwise. The reader is not kept past this call
+	private static Properties verify(Path payloads, Path directory, int shard, int shardCount, String input)
+			throws IOException {
+		var manifest = new Properties();
+		try (Reader reader = Files.newBufferedReader(manifestPath(directory, shard, shardCount))) {
+			manifest.load(reader);
+		} catch (NoSuchFileException e) {
+			log.warn("Shard {}: no manifest", shard);
+			return null;
+		}
+		if (!Integer.toString(shard).equals(manifest.getProperty("shard"))
+				|| !Integer.toString(shardCount).equals(manifest.getProperty("shards"))
+				|| !input.equals(manifest.getProperty("input"))) {
+			log.warn("Shard {}: manifest belongs to another input or partitioning", shard);
+			return null;
+		}
+
+		Path pack = directory.resolve(manifest.getProperty("pack", ""));
+		if (!Files.isRegularFile(pack) || Files.size(pack) != Long.parseLong(manifest.getProperty("pack.size", "-1"))
+				|| !Long.toHexString(checksum(pack)).equals(manifest.getProperty("pack.checksum"))) {
+			log.warn("Shard {}: pack {} missing or corrupted", shard, pack);
+			return null;
+		}
+		Path rejects = directory.resolve(manifest.getProperty("rejects", ""));
+		if (!Files.isRegularFile(rejects)
+				|| !Long.toHexString(checksum(rejects)).equals(manifest.getProperty("rejects.checksum"))) {
+			log.warn("Shard {}: rejects file {} missing or corrupted", shard, rejects);
+			return null;
+		}
+		Set<Long> rejected = new HashSet<>();
+		try (var lines = Files.lines(rejects)) {
+			lines.forEach(payload -> rejected.add(PayloadHash.of(payload)));
+		}
+
+		var reader = QRPackReader.open(pack);
+		if (reader.size() != Integer.parseInt(manifest.getProperty("entries", "-1"))) {
+			log.warn("Shard {}: pack holds {} entries, manifest {}", shard, reader.size(),
+					manifest.getProperty("entries"));
+			return null;
+		}
+		try (var lines = Files.lines(payloads)) {
+			for (var iterator = lines.iterator(); iterator.hasNext();) {
+				String payload = iterator.next();
+				if (payload.isBlank() || shardOf(payload, shardCount) != shard) {
+					continue;
+				}
+				long hash = PayloadHash.of(payload);
+				if (reader.indexOf(hash) < 0 && !rejected.contains(hash)) {
+					log.warn("Shard {}: no code for payload {}", shard, payload);
+					return null;
+				}
+			}
+		}
+		return manifest;
+	}
+
+	// CRC-32C of the whole file, streamed so inputs and packs of any size work
+	static long checksum(Path file) throws IOException {
+		var crc = new CRC32C();
+		var buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer.clear()) > 0) {
+				crc.update(buffer.flip());
+			}
+		}
+		return crc.getValue();
+	}
+
+	// Written aside and moved into place, readers never see a partial manifest
+	private static void write(Properties manifest, Path path) throws IOException {
+		Path temporary = temporary(path);
+		try (var writer = Files.newBufferedWriter(temporary)) {
+			manifest.store(writer, null);
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static Path temporary(Path path) {
+		return path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+	}
+
+	private static String shardName(int shard, int shardCount) {
+		return String.format("shard-%04d-of-%04d", shard, shardCount);
+	}
+}
@@ -0,0 +1,80 @@
+package net.talaatharb.qr;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class StartupCommands {
+
+	static final String FIRST_CODE = "first-code";
+	static final String FIRST_CODE_MARKER = "first-code-bytes=";
+	private static final String SAMPLE_PAYLOAD = "HELLO WORLD";
+	private static final double NANO_TO_MS = 1000000.0;
+
+	// first-code, the AppCDS training run and the benchmark workload: one code
+	// generated and encoded to PNG, then the JVM exits
+	static void firstCode() {
+		byte[] png = QRGenerator.generate(SAMPLE_PAYLOAD).toPNG();
+		System.out.println(FIRST_CODE_MARKER + png.length);
+		System.out.flush();
+	}
+
+	// startup-benchmark <runs> [archive], times fresh JVMs from launch until
+	// they report their first code, with and without the AppCDS archive
+	static void benchmark(int runs, Path archive) throws IOException, InterruptedException {
+		report("default", time(runs, List.of()));
+		if (archive == null) {
+			return;
+		}
+		if (!Files.isRegularFile(archive)) {
+			throw new IllegalArgumentException("No AppCDS archive at " + archive);
+		}
+		report("appcds", time(runs, List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto")));
+	}
+
+	private static long[] time(int runs, List<String> jvmOptions) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(ProcessHandle.current().info().command().orElse("java"));
+		command.addAll(jvmOptions);
+		command.addAll(List.of("-cp", System.getProperty("java.class.path"), QRApplication.class.getName(),
+				FIRST_CODE));
+
+		long[] nanos = new long[runs];
+		for (int run = 0; run < runs; run++) {
+			long start = System.nanoTime();
+			var process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+			try (var out = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = out.readLine()) != null && !line.startsWith(FIRST_CODE_MARKER)) {
+					// skip anything printed before the marker
+				}
+				nanos[run] = System.nanoTime() - start;
+				if (line == null) {
+					throw new IllegalStateException("Child JVM exited without a code: " + command);
+				}
+			}
+			process.waitFor();
+		}
+		return nanos;
+	}
+
+	private static void report(String variant, long[] nanos) {
+		Arrays.sort(nanos);
+		log.info("{}: time-to-first-code median {} ms, min {} ms, max {} ms over {} runs", variant,
+				nanos[nanos.length / 2] / NANO_TO_MS, nanos[0] / NANO_TO_MS, nanos[nanos.length - 1] / NANO_TO_MS,
+				nanos.length);
+	}
+}
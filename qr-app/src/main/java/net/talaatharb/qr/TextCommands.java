@@ -0,0 +1,45 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TextCommands {
+
+	static final String ANSI_FLAG = "--ansi";
+
+	// print <payloads-file> [--ansi], one payload per line; codes go to stdout,
+	// the generation log to stderr labels each of them. Payloads the generator
+	// cannot encode are logged and skipped instead of ending the run
+	static int print(Path payloads, boolean ansi) throws IOException {
+		var renderer = new QRTextRenderer(ansi);
+		int printed = 0;
+		int skipped = 0;
+		try (var lines = Files.lines(payloads)) {
+			for (var iterator = lines.iterator(); iterator.hasNext();) {
+				String payload = iterator.next();
+				if (payload.isBlank()) {
+					continue;
+				}
+				QRCode qr;
+				try {
+					qr = QRGenerator.generate(payload);
+				} catch (UnsupportedOperationException e) {
+					log.warn("Skipped payload that cannot be encoded: {}", payload);
+					skipped++;
+					continue;
+				}
+				renderer.write(qr, System.out);
+				printed++;
+			}
+		}
+		log.info("Printed {} codes, skipped {}", printed, skipped);
+		return printed;
+	}
+}
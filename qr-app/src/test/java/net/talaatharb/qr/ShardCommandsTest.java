@@ -0,0 +1,149 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardCommandsTest {
+
+	private static final int SHARDS = 3;
+	// '#' is outside the alphanumeric set and the last one is longer than 1-L holds
+	private static final List<String> REJECTED = List.of("#", "A".repeat(26));
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testAllShardsMergeComplete() throws IOException {
+		Path payloads = payloads();
+		runAll(payloads);
+
+		assertEquals(List.of(), ShardCommands.merge(payloads, SHARDS, directory));
+
+		assertFalse(Files.exists(directory.resolve(ShardCommands.RERUN_FILE)));
+		var manifest = load(directory.resolve(ShardCommands.MERGE_MANIFEST));
+		assertEquals("40", manifest.getProperty("entries")); // the duplicate is stored once
+		assertEquals(Integer.toString(REJECTED.size()), manifest.getProperty("rejected"));
+
+		Set<String> rejects = new HashSet<>();
+		for (int shard = 0; shard < SHARDS; shard++) {
+			rejects.addAll(Files.readAllLines(ShardCommands.rejectsPath(directory, shard, SHARDS)));
+			var reader = QRPackReader.open(ShardCommands.packPath(directory, shard, SHARDS));
+			for (int i = 0; i < 40; i++) {
+				String payload = "CODE " + i;
+				assertEquals(ShardCommands.shardOf(payload, SHARDS) == shard, reader.find(payload) != null);
+			}
+		}
+		assertEquals(Set.copyOf(REJECTED), rejects);
+	}
+
+	@Test
+	void testDamagedShardsListedForRerun() throws IOException {
+		Path payloads = payloads();
+		runAll(payloads);
+		Files.delete(ShardCommands.manifestPath(directory, 0, SHARDS));
+		corrupt(ShardCommands.packPath(directory, 2, SHARDS));
+
+		List<Integer> failed = ShardCommands.merge(payloads, SHARDS, directory);
+
+		assertEquals(List.of(0, 2), failed);
+		assertEquals(List.of("0", "2"), Files.readAllLines(directory.resolve(ShardCommands.RERUN_FILE)));
+		assertFalse(Files.exists(directory.resolve(ShardCommands.MERGE_MANIFEST)));
+
+		for (String shard : Files.readAllLines(directory.resolve(ShardCommands.RERUN_FILE))) {
+			ShardCommands.run(payloads, Integer.parseInt(shard), SHARDS, directory);
+		}
+
+		assertEquals(List.of(), ShardCommands.merge(payloads, SHARDS, directory));
+		assertFalse(Files.exists(directory.resolve(ShardCommands.RERUN_FILE)));
+		assertTrue(Files.exists(directory.resolve(ShardCommands.MERGE_MANIFEST)));
+	}
+
+	@Test
+	void testShardsOfAnotherInputFail() throws IOException {
+		Path payloads = payloads();
+		runAll(payloads);
+		Files.writeString(payloads, "CODE 40\n", StandardOpenOption.APPEND);
+
+		assertEquals(List.of(0, 1, 2), ShardCommands.merge(payloads, SHARDS, directory));
+	}
+
+	@Test
+	void testTamperedRejectsFail() throws IOException {
+		Path payloads = payloads();
+		runAll(payloads);
+		int shard = ShardCommands.shardOf(REJECTED.get(0), SHARDS);
+		Files.writeString(ShardCommands.rejectsPath(directory, shard, SHARDS), "");
+
+		assertEquals(List.of(shard), ShardCommands.merge(payloads, SHARDS, directory));
+	}
+
+	@Test
+	void testFailedRunLeavesNoTemporaryFiles() throws IOException {
+		Path missing = directory.resolve("missing.txt");
+
+		assertThrows(NoSuchFileException.class, () -> ShardCommands.run(missing, 0, SHARDS, directory));
+
+		try (var files = Files.list(directory)) {
+			assertEquals(List.of(), files.toList());
+		}
+	}
+
+	private Path payloads() throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			lines.add("CODE " + i);
+		}
+		lines.add("");
+		lines.add("CODE 7");
+		lines.addAll(REJECTED);
+		Path payloads = directory.resolve("payloads.txt");
+		Files.write(payloads, lines);
+		return payloads;
+	}
+
+	private void runAll(Path payloads) throws IOException {
+		for (int shard = 0; shard < SHARDS; shard++) {
+			ShardCommands.run(payloads, shard, SHARDS, directory);
+			assertNotNull(load(ShardCommands.manifestPath(directory, shard, SHARDS)));
+		}
+	}
+
+	// Flips one byte in the middle of the file, size unchanged
+	private static void corrupt(Path file) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			var buffer = ByteBuffer.allocate(1);
+			long position = channel.size() / 2;
+			channel.read(buffer, position);
+			buffer.put(0, (byte) ~buffer.get(0));
+			channel.write(buffer.flip(), position);
+		}
+	}
+
+	private static Properties load(Path file) throws IOException {
+		var properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file)) {
+			properties.load(reader);
+		}
+		return properties;
+	}
+}
@@ -0,0 +1,41 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TextCommandsTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testSkipsPayloadsThatCannotBeEncoded() throws IOException {
+		Path payloads = directory.resolve("payloads.txt");
+		Files.write(payloads, List.of("HELLO", "#", "", "A".repeat(26), "WORLD"));
+		var bytes = new ByteArrayOutputStream();
+		var out = System.out;
+
+		int printed;
+		System.setOut(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+		try {
+			printed = TextCommands.print(payloads, false);
+		} finally {
+			System.setOut(out);
+		}
+
+		var renderer = new QRTextRenderer();
+		assertEquals(2, printed);
+		assertEquals(renderer.render(QRGenerator.encode("HELLO")) + renderer.render(QRGenerator.encode("WORLD")),
+				bytes.toString(StandardCharsets.UTF_8));
+	}
+}
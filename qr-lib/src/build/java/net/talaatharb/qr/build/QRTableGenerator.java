@@ -0,0 +1,159 @@
+package net.talaatharb.qr.build;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Emits net.talaatharb.qr.QRTables with every lookup table the library would
+// otherwise compute, including the Reed-Solomon generator polynomials that were
+// rebuilt per call. The literals still run in QRTables' static initialiser,
+// this saves the arithmetic, not class initialisation. Runs in the generate-sources phase
+// through the single-file source launcher:
+// java QRTableGenerator.java <generated-sources-directory>
+public class QRTableGenerator {
+
+	private static final int GF_SIZE = 256;
+	private static final int GF_PRIMITIVE = 0x11D; // x^8 + x^4 + x^3 + x^2 + 1
+	private static final int MAX_VERSION = 40;
+	private static final int MAX_EC_CODEWORDS_PER_BLOCK = 30;
+	private static final String ALPHANUMERIC_CHARSET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+	private static final int VALUES_PER_LINE = 16;
+
+	// ISO/IEC 18004 table 9, indexed by [L, M, Q, H][version]
+	private static final int[][] EC_CODEWORDS_PER_BLOCK = {
+			{ -1, 7, 10, 15, 20, 26, 18, 20, 24, 30, 18, 20, 24, 26, 30, 22, 24, 28, 30, 28, 28, 28, 28, 30, 30, 26,
+					28, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30 },
+			{ -1, 10, 16, 26, 18, 24, 16, 18, 22, 22, 26, 30, 22, 22, 24, 24, 28, 28, 26, 26, 26, 26, 28, 28, 28, 28,
+					28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28 },
+			{ -1, 13, 22, 18, 26, 18, 24, 18, 22, 20, 24, 28, 26, 24, 20, 30, 24, 28, 28, 26, 30, 28, 30, 30, 30, 30,
+					28, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30 },
+			{ -1, 17, 28, 22, 16, 22, 28, 26, 26, 24, 28, 24, 28, 22, 24, 24, 30, 28, 28, 26, 28, 30, 24, 30, 30, 30,
+					30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30 } };
+	private static final int[][] EC_BLOCKS = {
+			{ -1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 4, 4, 4, 4, 4, 6, 6, 6, 6, 7, 8, 8, 9, 9, 10, 12, 12, 12, 13, 14, 15, 16,
+					17, 18, 19, 19, 20, 21, 22, 24, 25 },
+			{ -1, 1, 1, 1, 2, 2, 4, 4, 4, 5, 5, 5, 8, 9, 9, 10, 10, 11, 13, 14, 16, 17, 17, 18, 20, 21, 23, 25, 26, 28,
+					29, 31, 33, 35, 37, 38, 40, 43, 45, 47, 49 },
+			{ -1, 1, 1, 2, 2, 4, 4, 6, 6, 8, 8, 8, 10, 12, 16, 12, 17, 16, 18, 21, 20, 23, 23, 25, 27, 29, 34, 34, 35,
+					38, 40, 43, 45, 48, 51, 53, 56, 59, 62, 65, 68 },
+			{ -1, 1, 1, 2, 4, 4, 4, 5, 6, 8, 8, 11, 11, 16, 16, 18, 16, 19, 21, 25, 25, 25, 34, 30, 32, 35, 37, 40, 42,
+					45, 48, 51, 54, 57, 60, 63, 66, 70, 74, 77, 81 } };
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			throw new IllegalArgumentException("Usage: QRTableGenerator <generated-sources-directory>");
+		}
+		Path target = Path.of(args[0], "net", "talaatharb", "qr", "QRTables.java");
+		Files.createDirectories(target.getParent());
+		Files.writeString(target, source());
+	}
+
+	static String source() {
+		int[] exp = new int[GF_SIZE * 2];
+		int[] log = new int[GF_SIZE];
+		// Same walk as the runtime tables used to do, including LOG[1] ending
+		// up as 255 once alpha^255 wraps around to 1
+		int x = 1;
+		for (int i = 0; i < GF_SIZE; i++) {
+			exp[i] = x;
+			log[x] = i;
+			x <<= 1;
+			if (x >= GF_SIZE) {
+				x ^= GF_PRIMITIVE;
+			}
+		}
+		System.arraycopy(exp, 0, exp, GF_SIZE, GF_SIZE);
+
+		int[] alphanumeric = new int[128];
+		Arrays.fill(alphanumeric, -1);
+		for (int i = 0; i < ALPHANUMERIC_CHARSET.length(); i++) {
+			alphanumeric[ALPHANUMERIC_CHARSET.charAt(i)] = i;
+		}
+
+		int[] totalCodewords = new int[MAX_VERSION + 1];
+		int[][] dataCodewords = new int[EC_BLOCKS.length][MAX_VERSION + 1];
+		for (int version = 1; version <= MAX_VERSION; version++) {
+			totalCodewords[version] = rawDataModules(version) / 8;
+			for (int level = 0; level < EC_BLOCKS.length; level++) {
+				dataCodewords[level][version] = totalCodewords[version]
+						- EC_CODEWORDS_PER_BLOCK[level][version] * EC_BLOCKS[level][version];
+			}
+		}
+
+		int[][] generators = new int[MAX_EC_CODEWORDS_PER_BLOCK + 1][];
+		for (int degree = 0; degree < generators.length; degree++) {
+			generators[degree] = generator(degree, exp, log);
+		}
+
+		var out = new StringBuilder();
+		out.append("package net.talaatharb.qr;\n\n");
+		out.append("// Generated at build time by src/build/java/net/talaatharb/qr/build/QRTableGenerator.java, do not edit\n");
+		out.append("final class QRTables {\n\n");
+		out.append("\tprivate QRTables() {\n\t}\n\n");
+		out.append("\t// GF(2^8) with the 0x11D primitive polynomial, exponents doubled up to skip a modulo\n");
+		array(out, "int[]", "GF_EXP", exp);
+		array(out, "int[]", "GF_LOG", log);
+		out.append("\t// Alphanumeric mode value of each ASCII character, -1 outside the charset\n");
+		array(out, "byte[]", "ALPHANUMERIC_VALUES", alphanumeric);
+		out.append("\t// Indexed by version, then by [errorCorrectionLevel.ordinal()][version]\n");
+		array(out, "int[]", "TOTAL_CODEWORDS", totalCodewords);
+		table(out, "EC_CODEWORDS_PER_BLOCK", EC_CODEWORDS_PER_BLOCK);
+		table(out, "EC_BLOCKS", EC_BLOCKS);
+		table(out, "DATA_CODEWORDS", dataCodewords);
+		out.append("\t// Reed-Solomon generator polynomials by degree, highest power first\n");
+		table(out, "RS_GENERATORS", generators);
+		out.append("}\n");
+		return out.toString();
+	}
+
+	private static int[] generator(int degree, int[] exp, int[] log) {
+		int[] generator = new int[degree + 1];
+		generator[0] = 1;
+		for (int i = 0; i < degree; i++) {
+			for (int j = i; j >= 0; j--) {
+				int product = generator[j] == 0 ? 0 : exp[(log[generator[j]] + log[exp[i]]) % (GF_SIZE - 1)];
+				generator[j + 1] ^= product;
+			}
+		}
+		return generator;
+	}
+
+	private static int rawDataModules(int version) {
+		int modules = (16 * version + 128) * version + 64;
+		if (version >= 2) {
+			int alignments = version / 7 + 2;
+			modules -= (25 * alignments - 10) * alignments - 55;
+			if (version >= 7) {
+				modules -= 36; // two version information blocks
+			}
+		}
+		return modules;
+	}
+
+	private static void array(StringBuilder out, String type, String name, int[] values) {
+		out.append("\tstatic final ").append(type).append(' ').append(name).append(" = ");
+		values(out, values, "\t\t\t");
+		out.append(";\n");
+	}
+
+	private static void table(StringBuilder out, String name, int[][] rows) {
+		out.append("\tstatic final int[][] ").append(name).append(" = {\n");
+		for (int i = 0; i < rows.length; i++) {
+			out.append("\t\t\t");
+			values(out, rows[i], "\t\t\t\t\t");
+			out.append(i + 1 < rows.length ? ",\n" : " };\n");
+		}
+	}
+
+	private static void values(StringBuilder out, int[] values, String indent) {
+		out.append("{ ");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				out.append(i % VALUES_PER_LINE == 0 ? ",\n" + indent : ", ");
+			}
+			out.append(values[i]);
+		}
+		out.append(" }");
+	}
+}
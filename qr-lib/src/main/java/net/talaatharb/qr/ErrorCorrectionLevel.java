@@ -0,0 +1,13 @@
+package net.talaatharb.qr;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// Declared in the order used by calculateFormatBits (L = 0 .. H = 3)
+@Getter
+@RequiredArgsConstructor
+public enum ErrorCorrectionLevel {
+	L(0b01), M(0b00), Q(0b11), H(0b10);
+
+	private final int formatBits;
+}
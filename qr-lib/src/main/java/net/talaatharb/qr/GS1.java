@@ -0,0 +1,247 @@
+package net.talaatharb.qr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+
+// Parser and validator for GS1 element strings, in the bracketed human readable
+// form "(01)09521234543213(17)250101(10)ABC123" or the raw form where variable
+// length fields are ended by a group separator (FNC1). Values in the
+// bracketed form cannot themselves contain '('
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class GS1 {
+
+	public static final char GROUP_SEPARATOR = QRSegmentation.GROUP_SEPARATOR;
+
+	// GS1 General Specifications character set 82, allowed in X fields
+	private static final String CHARSET_82 = "!\"%&'()*+,-./0123456789:;<=>?ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+	// First two digits of the AIs whose element length is predefined, so no
+	// separator is needed after them
+	private static final String[] PREDEFINED_LENGTH = { "00", "01", "02", "03", "04", "11", "12", "13", "14", "15",
+			"16", "17", "18", "19", "20", "31", "32", "33", "34", "35", "36", "41" };
+	private static final int MAX_AI_LENGTH = 4;
+	private static final Map<String, Definition> DEFINITIONS = definitions();
+
+	@Value
+	private static class Definition {
+		int minLength;
+		int maxLength;
+		boolean numeric;
+		boolean checkDigit;
+		boolean date;
+	}
+
+	public static List<GS1Element> parse(CharSequence elementString) {
+		if (elementString == null || elementString.isEmpty()) {
+			throw new IllegalArgumentException("Empty GS1 element string");
+		}
+		List<GS1Element> elements = elementString.charAt(0) == '(' ? parseBracketed(elementString)
+				: parseRaw(elementString);
+		for (var element : elements) {
+			validate(element);
+		}
+		return elements;
+	}
+
+	// Raw element string as carried by the symbol: fields back to back with a
+	// group separator after every element of variable length except the last
+	public static String encodedData(List<GS1Element> elements) {
+		var data = new StringBuilder();
+		for (int i = 0; i < elements.size(); i++) {
+			var element = elements.get(i);
+			data.append(element.getApplicationIdentifier()).append(element.getValue());
+			if (i + 1 < elements.size() && !hasPredefinedLength(element.getApplicationIdentifier())) {
+				data.append(GROUP_SEPARATOR);
+			}
+		}
+		return data.toString();
+	}
+
+	public static String toHumanReadable(List<GS1Element> elements) {
+		var text = new StringBuilder();
+		for (var element : elements) {
+			text.append(element);
+		}
+		return text.toString();
+	}
+
+	static boolean hasPredefinedLength(String applicationIdentifier) {
+		for (String prefix : PREDEFINED_LENGTH) {
+			if (applicationIdentifier.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<GS1Element> parseBracketed(CharSequence text) {
+		List<GS1Element> elements = new ArrayList<>();
+		int position = 0;
+		while (position < text.length()) {
+			int close = indexOf(text, ')', position);
+			if (text.charAt(position) != '(' || close < 0) {
+				throw new IllegalArgumentException("Expected (AI) at " + position + " in " + text);
+			}
+			String applicationIdentifier = text.subSequence(position + 1, close).toString();
+			int next = indexOf(text, '(', close + 1);
+			int end = next < 0 ? text.length() : next;
+			elements.add(new GS1Element(applicationIdentifier, text.subSequence(close + 1, end).toString()));
+			position = end;
+		}
+		return elements;
+	}
+
+	private static List<GS1Element> parseRaw(CharSequence text) {
+		List<GS1Element> elements = new ArrayList<>();
+		int position = 0;
+		while (position < text.length()) {
+			String applicationIdentifier = null;
+			for (int length = 2; length <= MAX_AI_LENGTH && position + length <= text.length(); length++) {
+				String candidate = text.subSequence(position, position + length).toString();
+				if (DEFINITIONS.containsKey(candidate)) {
+					applicationIdentifier = candidate;
+					break;
+				}
+			}
+			if (applicationIdentifier == null) {
+				throw new IllegalArgumentException("Unknown application identifier at " + position + " in " + text);
+			}
+
+			var definition = DEFINITIONS.get(applicationIdentifier);
+			int start = position + applicationIdentifier.length();
+			int end;
+			if (definition.getMinLength() == definition.getMaxLength()) {
+				end = Math.min(start + definition.getMaxLength(), text.length());
+			} else {
+				int separator = indexOf(text, GROUP_SEPARATOR, start);
+				end = separator < 0 ? text.length() : separator;
+			}
+			elements.add(new GS1Element(applicationIdentifier, text.subSequence(start, end).toString()));
+			position = end < text.length() && text.charAt(end) == GROUP_SEPARATOR ? end + 1 : end;
+		}
+		return elements;
+	}
+
+	private static void validate(GS1Element element) {
+		String applicationIdentifier = element.getApplicationIdentifier();
+		String value = element.getValue();
+		var definition = DEFINITIONS.get(applicationIdentifier);
+		if (definition == null) {
+			throw new IllegalArgumentException("Unknown application identifier (" + applicationIdentifier + ")");
+		}
+		if (value.length() < definition.getMinLength() || value.length() > definition.getMaxLength()) {
+			throw new IllegalArgumentException("(" + applicationIdentifier + ") takes "
+					+ (definition.getMinLength() == definition.getMaxLength() ? "exactly " + definition.getMaxLength()
+							: definition.getMinLength() + " to " + definition.getMaxLength())
+					+ " characters: " + value);
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (definition.isNumeric() ? c < '0' || c > '9' : CHARSET_82.indexOf(c) < 0) {
+				throw new IllegalArgumentException("Invalid character '" + c + "' in (" + applicationIdentifier + ")");
+			}
+		}
+		if (definition.isCheckDigit() && checkDigit(value) != value.charAt(value.length() - 1) - '0') {
+			throw new IllegalArgumentException("Wrong check digit in (" + applicationIdentifier + ")" + value);
+		}
+		if (definition.isDate()) {
+			int month = Integer.parseInt(value.substring(2, 4));
+			int day = Integer.parseInt(value.substring(4, 6));
+			if (month < 1 || month > 12 || day > 31) {
+				throw new IllegalArgumentException("Invalid YYMMDD date in (" + applicationIdentifier + ")" + value);
+			}
+		}
+	}
+
+	// GS1 mod 10 check digit over every digit but the last, weights 3 and 1
+	// alternating from the right
+	static int checkDigit(String digits) {
+		int sum = 0;
+		for (int i = digits.length() - 2, weight = 3; i >= 0; i--, weight = 4 - weight) {
+			sum += (digits.charAt(i) - '0') * weight;
+		}
+		return (10 - sum % 10) % 10;
+	}
+
+	private static int indexOf(CharSequence text, char c, int from) {
+		for (int i = from; i < text.length(); i++) {
+			if (text.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static Map<String, Definition> definitions() {
+		Map<String, Definition> definitions = new HashMap<>();
+		var sscc = new Definition(18, 18, true, true, false);
+		var gtin = new Definition(14, 14, true, true, false);
+		var date = new Definition(6, 6, true, false, true);
+		var measure = new Definition(6, 6, true, false, false);
+		definitions.put("00", sscc);
+		definitions.put("01", gtin);
+		definitions.put("02", gtin);
+		definitions.put("10", alphanumeric(20));
+		for (String ai : new String[] { "11", "12", "13", "15", "16", "17" }) {
+			definitions.put(ai, date);
+		}
+		definitions.put("20", new Definition(2, 2, true, false, false));
+		definitions.put("21", alphanumeric(20));
+		definitions.put("22", alphanumeric(20));
+		definitions.put("235", alphanumeric(28));
+		definitions.put("240", alphanumeric(30));
+		definitions.put("241", alphanumeric(30));
+		definitions.put("242", numeric(6));
+		definitions.put("250", alphanumeric(30));
+		definitions.put("251", alphanumeric(30));
+		definitions.put("254", alphanumeric(20));
+		definitions.put("30", numeric(8));
+		// Trade measures, the fourth digit placing the decimal point
+		for (int type = 310; type <= 369; type++) {
+			for (int decimals = 0; decimals <= 9; decimals++) {
+				definitions.put(Integer.toString(type) + decimals, measure);
+			}
+		}
+		definitions.put("37", numeric(8));
+		for (int decimals = 0; decimals <= 9; decimals++) {
+			definitions.put("390" + decimals, numeric(15));
+			definitions.put("391" + decimals, numeric(18));
+			definitions.put("392" + decimals, numeric(15));
+			definitions.put("393" + decimals, numeric(18));
+		}
+		definitions.put("400", alphanumeric(30));
+		definitions.put("401", alphanumeric(30));
+		definitions.put("402", new Definition(17, 17, true, true, false));
+		definitions.put("403", alphanumeric(30));
+		var globalLocation = new Definition(13, 13, true, true, false);
+		for (int ai = 410; ai <= 417; ai++) {
+			definitions.put(Integer.toString(ai), globalLocation);
+		}
+		definitions.put("420", alphanumeric(20));
+		definitions.put("421", alphanumeric(12));
+		definitions.put("422", new Definition(3, 3, true, false, false));
+		definitions.put("7003", new Definition(10, 10, true, false, false));
+		definitions.put("8003", alphanumeric(30));
+		definitions.put("8004", alphanumeric(30));
+		definitions.put("8020", alphanumeric(25));
+		definitions.put("8200", alphanumeric(70));
+		definitions.put("90", alphanumeric(30));
+		for (int ai = 91; ai <= 99; ai++) {
+			definitions.put(Integer.toString(ai), alphanumeric(90));
+		}
+		return Map.copyOf(definitions);
+	}
+
+	private static Definition numeric(int maxLength) {
+		return new Definition(1, maxLength, true, false, false);
+	}
+
+	private static Definition alphanumeric(int maxLength) {
+		return new Definition(1, maxLength, false, false, false);
+	}
+}
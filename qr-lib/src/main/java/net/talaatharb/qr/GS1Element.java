@@ -0,0 +1,16 @@
+package net.talaatharb.qr;
+
+import lombok.Value;
+
+// One GS1 Application Identifier and its data field
+@Value
+public class GS1Element {
+
+	String applicationIdentifier;
+	String value;
+
+	@Override
+	public String toString() {
+		return "(" + applicationIdentifier + ")" + value;
+	}
+}
@@ -0,0 +1,65 @@
+package net.talaatharb.qr;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class PayloadHash {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	// 64-bit FNV-1a over the UTF-8 encoding of the payload, computed without
+	// materialising the encoded bytes
+	public static long of(CharSequence payload) {
+		long hash = FNV_OFFSET_BASIS;
+		int length = payload.length();
+		for (int i = 0; i < length; i++) {
+			int codePoint = payload.charAt(i);
+			if (Character.isHighSurrogate((char) codePoint) && i + 1 < length
+					&& Character.isLowSurrogate(payload.charAt(i + 1))) {
+				codePoint = Character.toCodePoint((char) codePoint, payload.charAt(++i));
+			} else if (Character.isSurrogate((char) codePoint)) {
+				codePoint = '?'; // same replacement as the UTF-8 encoder
+			}
+
+			if (codePoint < 0x80) {
+				hash = mix(hash, codePoint);
+			} else if (codePoint < 0x800) {
+				hash = mix(hash, 0xC0 | (codePoint >> 6));
+				hash = mix(hash, 0x80 | (codePoint & 0x3F));
+			} else if (codePoint < 0x10000) {
+				hash = mix(hash, 0xE0 | (codePoint >> 12));
+				hash = mix(hash, 0x80 | ((codePoint >> 6) & 0x3F));
+				hash = mix(hash, 0x80 | (codePoint & 0x3F));
+			} else {
+				hash = mix(hash, 0xF0 | (codePoint >> 18));
+				hash = mix(hash, 0x80 | ((codePoint >> 12) & 0x3F));
+				hash = mix(hash, 0x80 | ((codePoint >> 6) & 0x3F));
+				hash = mix(hash, 0x80 | (codePoint & 0x3F));
+			}
+		}
+		return hash;
+	}
+
+	public static long of(byte[] payload, int offset, int length) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = offset; i < offset + length; i++) {
+			hash = mix(hash, payload[i] & 0xFF);
+		}
+		return hash;
+	}
+
+	// MurmurHash3 finalizer. The low bits of an FNV-1a hash only depend on the
+	// low bits of each byte, so hashes go through this before being reduced to
+	// a table position or a shard
+	static long spread(long hash) {
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+
+	private static long mix(long hash, int octet) {
+		return (hash ^ octet) * FNV_PRIME;
+	}
+}
@@ -0,0 +1,92 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Encoding, masking and PNG compression run on a fixed pool sized to the CPUs,
+// writes run on virtual threads so a slow disk never holds a CPU worker: the
+// next code can be generated while the previous one is still being written
+@Slf4j
+public class QRAsync implements AutoCloseable {
+
+	private final ExecutorService cpu;
+	private final ExecutorService io;
+
+	public QRAsync() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public QRAsync(int cpuThreads) {
+		if (cpuThreads <= 0) {
+			throw new IllegalArgumentException("CPU threads must be positive");
+		}
+		this.cpu = Executors.newFixedThreadPool(cpuThreads, Thread.ofPlatform().name("qr-cpu-", 0).daemon().factory());
+		this.io = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("qr-io-", 0).factory());
+	}
+
+	// The text is copied up front, a mutable sequence may change after the call
+	public CompletableFuture<QRCode> generateAsync(CharSequence text) {
+		String snapshot = Objects.toString(text, null);
+		return CompletableFuture.supplyAsync(() -> QRGenerator.generate(snapshot), cpu);
+	}
+
+	// Generation and PNG compression share one CPU task, only the write is handed off
+	public CompletableFuture<Path> renderAsync(CharSequence text, Path path) {
+		String snapshot = Objects.toString(text, null);
+		return writeAsync(CompletableFuture.supplyAsync(() -> QRGenerator.generate(snapshot).toPNG(), cpu), path);
+	}
+
+	public CompletableFuture<Path> renderAsync(QRCode qr, Path path) {
+		return writeAsync(CompletableFuture.supplyAsync(qr::toPNG, cpu), path);
+	}
+
+	// The channel is written but left open, it belongs to the caller
+	public CompletableFuture<Void> renderAsync(QRCode qr, WritableByteChannel channel) {
+		return CompletableFuture.supplyAsync(qr::toPNG, cpu).thenAcceptAsync(png -> {
+			try {
+				write(channel, png);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, io);
+	}
+
+	private CompletableFuture<Path> writeAsync(CompletableFuture<byte[]> png, Path path) {
+		return png.thenApplyAsync(bytes -> {
+			try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				write(channel, bytes);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to save at location " + path, e);
+			}
+			log.debug("Rendered QR code to image: {}", path);
+			return path;
+		}, io);
+	}
+
+	private static void write(WritableByteChannel channel, byte[] png) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(png);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	// Work already submitted is completed before the pools are released, CPU
+	// first since its tasks hand their writes over to the I/O stage
+	@Override
+	public void close() {
+		cpu.close();
+		io.close();
+	}
+}
@@ -0,0 +1,116 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class QRBatchReader {
+
+	private final ByteBuffer source;
+	private final int matrixSize;
+	private final int stride;
+	private final int capacity;
+	private final int tableSize;
+
+	// The source may be shared with a QRBatchWriter that is still appending:
+	// count() acquires what the writer released, so every slot below it is
+	// complete
+	public QRBatchReader(ByteBuffer source) {
+		this.source = source.slice().order(ByteOrder.BIG_ENDIAN);
+		if (this.source.remaining() < QRBatchWriter.HEADER_SIZE
+				|| this.source.getInt(QRBatchWriter.MAGIC_OFFSET) != QRBatchWriter.MAGIC) {
+			throw new IllegalArgumentException("Not a QR batch");
+		}
+		if (this.source.getShort(QRBatchWriter.LAYOUT_VERSION_OFFSET) != QRBatchWriter.LAYOUT_VERSION) {
+			throw new IllegalArgumentException("Unsupported QR batch layout");
+		}
+		this.matrixSize = this.source.getShort(QRBatchWriter.MATRIX_SIZE_OFFSET);
+		this.stride = this.source.getInt(QRBatchWriter.STRIDE_OFFSET);
+		this.capacity = this.source.getInt(QRBatchWriter.CAPACITY_OFFSET);
+		this.tableSize = this.source.getInt(QRBatchWriter.TABLE_SIZE_OFFSET);
+		if (capacity <= 0 || tableSize != QRBatchWriter.tableSize(capacity)
+				|| this.source.remaining() < QRBatchWriter.layoutSize(capacity)
+				|| this.source.alignmentOffset(QRBatchWriter.COUNT_OFFSET, Integer.BYTES) != 0) {
+			throw new IllegalArgumentException("Corrupt QR batch header");
+		}
+	}
+
+	public static QRBatchReader map(Path file) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new QRBatchReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	// Read on every call so a reader can follow a writer sharing the buffer
+	public int count() {
+		return (int) QRBatchWriter.COUNT.getAcquire(source, QRBatchWriter.COUNT_OFFSET);
+	}
+
+	public int matrixSize() {
+		return matrixSize;
+	}
+
+	public long hash(int slot) {
+		checkSlot(slot);
+		return source.getLong(indexOffset(slot));
+	}
+
+	// First slot holding the payload, probed through the hash table. Table
+	// entries for slots the count does not cover yet are skipped
+	public int find(CharSequence payload) {
+		long hash = PayloadHash.of(payload);
+		int count = count();
+		long table = QRBatchWriter.tableOffset(capacity);
+		int i = QRBatchWriter.tablePosition(hash, tableSize);
+		for (int probe = 0; probe < tableSize; probe++, i = (i + 1) & (tableSize - 1)) {
+			int slot = source.getInt(Math.toIntExact(table + (long) i * QRBatchWriter.TABLE_ENTRY_SIZE)) - 1;
+			if (slot < 0) {
+				break;
+			}
+			if (slot < count && source.getLong(indexOffset(slot)) == hash) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	public boolean isDark(int slot, int row, int col) {
+		checkSlot(slot);
+		int bit = row * matrixSize + col;
+		int packed = source.get(recordOffset(slot) + bit / 8);
+		return ((packed >> (7 - bit % 8)) & 1) == 1;
+	}
+
+	// Zero-copy read-only view of the packed modules of one code
+	public ByteBuffer record(int slot) {
+		checkSlot(slot);
+		return source.slice(recordOffset(slot), (matrixSize * matrixSize + 7) / 8).asReadOnlyBuffer();
+	}
+
+	public int[][] toMatrix(int slot) {
+		int[][] qrMatrix = new int[matrixSize][matrixSize];
+		for (int row = 0; row < matrixSize; row++) {
+			for (int col = 0; col < matrixSize; col++) {
+				qrMatrix[row][col] = isDark(slot, row, col) ? 1 : 0;
+			}
+		}
+		return qrMatrix;
+	}
+
+	private static int indexOffset(int slot) {
+		return Math.toIntExact(QRBatchWriter.HEADER_SIZE + (long) slot * QRBatchWriter.INDEX_ENTRY_SIZE);
+	}
+
+	private int recordOffset(int slot) {
+		return Math.toIntExact(QRBatchWriter.recordsOffset(capacity) + (long) slot * stride);
+	}
+
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= count()) {
+			throw new IndexOutOfBoundsException("No code at slot " + slot);
+		}
+	}
+}
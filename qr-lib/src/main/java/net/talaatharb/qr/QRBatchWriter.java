@@ -0,0 +1,153 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class QRBatchWriter {
+
+	// Layout: header, then one payload hash per slot, then an open-addressed
+	// table of slot + 1 by payload hash (0 for empty, at most half full), then
+	// fixed-stride records holding the modules packed row-major, most
+	// significant bit first
+	static final int MAGIC = 0x51524231; // "QRB1"
+	static final short LAYOUT_VERSION = 2;
+	static final int HEADER_SIZE = 32;
+	static final int MAGIC_OFFSET = 0;
+	static final int LAYOUT_VERSION_OFFSET = 4;
+	static final int MATRIX_SIZE_OFFSET = 6;
+	static final int STRIDE_OFFSET = 8;
+	static final int CAPACITY_OFFSET = 12;
+	static final int COUNT_OFFSET = 16;
+	static final int TABLE_SIZE_OFFSET = 20;
+	static final int INDEX_ENTRY_SIZE = Long.BYTES;
+	static final int TABLE_ENTRY_SIZE = Integer.BYTES;
+
+	// The count is written with release and read with acquire semantics, so a
+	// reader that sees a count also sees the hashes, table entries and records
+	// of every slot below it, even while the writer keeps appending
+	static final VarHandle COUNT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private final ByteBuffer target;
+	private final int capacity;
+	private final int tableSize;
+	private final int matrixSize;
+	private final int stride;
+	private int count;
+
+	public QRBatchWriter(ByteBuffer target, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		long required = layoutSize(capacity);
+		if (target.remaining() < required) {
+			throw new IllegalArgumentException("Target buffer needs " + required + " bytes");
+		}
+		this.target = target.slice().order(ByteOrder.BIG_ENDIAN);
+		if (this.target.alignmentOffset(COUNT_OFFSET, Integer.BYTES) != 0) {
+			throw new IllegalArgumentException("Target buffer must be 4-byte aligned");
+		}
+		this.capacity = capacity;
+		this.tableSize = (int) tableSize(capacity); // fits, the buffer holds the table
+		this.matrixSize = QRGenerator.MATRIX_SIZE;
+		this.stride = recordStride(matrixSize);
+
+		this.target.putInt(MAGIC_OFFSET, MAGIC);
+		this.target.putShort(LAYOUT_VERSION_OFFSET, LAYOUT_VERSION);
+		this.target.putShort(MATRIX_SIZE_OFFSET, (short) matrixSize);
+		this.target.putInt(STRIDE_OFFSET, stride);
+		this.target.putInt(CAPACITY_OFFSET, capacity);
+		this.target.putInt(TABLE_SIZE_OFFSET, tableSize);
+		for (long i = 0; i < tableSize; i++) {
+			this.target.putInt(Math.toIntExact(tableOffset(capacity) + i * TABLE_ENTRY_SIZE), 0);
+		}
+		COUNT.setRelease(this.target, COUNT_OFFSET, 0);
+	}
+
+	public static long layoutSize(int capacity) {
+		return recordsOffset(capacity) + capacity * (long) recordStride(QRGenerator.MATRIX_SIZE);
+	}
+
+	// Maps (and creates if needed) a file large enough for the given capacity
+	public static MappedByteBuffer map(Path file, int capacity) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, layoutSize(capacity));
+		}
+	}
+
+	public int append(String text) {
+		checkCapacity();
+		return append(QRGenerator.encode(text), PayloadHash.of(text));
+	}
+
+	// UTF-8 payload, hashed and encoded in place
+	public int append(byte[] payload, int offset, int length) {
+		checkCapacity();
+		return append(QRGenerator.encode(payload, offset, length), PayloadHash.of(payload, offset, length));
+	}
+
+	private void checkCapacity() {
+		if (count == capacity) {
+			throw new IllegalStateException("Batch is full");
+		}
+	}
+
+	private int append(QRCode code, long hash) {
+		int slot = count;
+
+		target.putLong(Math.toIntExact(HEADER_SIZE + (long) slot * INDEX_ENTRY_SIZE), hash);
+		var modules = code.packedModules();
+		target.put(Math.toIntExact(recordsOffset(capacity) + (long) slot * stride), modules, 0, modules.remaining());
+		// Linear probing; a repeated payload lands after the first one, which
+		// lookups therefore keep finding
+		for (int i = tablePosition(hash, tableSize);; i = (i + 1) & (tableSize - 1)) {
+			int entry = Math.toIntExact(tableOffset(capacity) + (long) i * TABLE_ENTRY_SIZE);
+			if (target.getInt(entry) == 0) {
+				target.putInt(entry, slot + 1);
+				break;
+			}
+		}
+
+		count++;
+		COUNT.setRelease(target, COUNT_OFFSET, count);
+		return slot;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	static int recordStride(int matrixSize) {
+		int packedBytes = (matrixSize * matrixSize + 7) / 8;
+		return (packedBytes + 7) & ~7; // keep records 8-byte aligned
+	}
+
+	// Smallest power of two at least twice the capacity
+	static long tableSize(int capacity) {
+		return Long.highestOneBit(2L * capacity - 1) << 1;
+	}
+
+	static int tablePosition(long hash, int tableSize) {
+		return (int) PayloadHash.spread(hash) & (tableSize - 1);
+	}
+
+	static long tableOffset(int capacity) {
+		return HEADER_SIZE + (long) capacity * INDEX_ENTRY_SIZE;
+	}
+
+	static long recordsOffset(int capacity) {
+		long tableEnd = tableOffset(capacity) + tableSize(capacity) * TABLE_ENTRY_SIZE;
+		return (tableEnd + 7) & ~7L; // keep records 8-byte aligned
+	}
+}
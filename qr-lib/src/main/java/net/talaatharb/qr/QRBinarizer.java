@@ -0,0 +1,75 @@
+package net.talaatharb.qr;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QRBinarizer {
+
+	// A pixel is dark when it is this many percent below its neighbourhood mean
+	static final int THRESHOLD_PERCENT = 15;
+	static final int MIN_WINDOW_RADIUS = 4;
+
+	// Adaptive (Bradley) thresholding over an integral image, luminance is one
+	// unsigned byte per pixel, row-major
+	static final BinaryImage binarize(byte[] luminance, int width, int height) {
+		int stride = width + 1;
+		long[] integral = new long[stride * (height + 1)];
+		int min = 255;
+		int max = 0;
+		for (int y = 0; y < height; y++) {
+			long rowSum = 0;
+			for (int x = 0; x < width; x++) {
+				int value = luminance[y * width + x] & 0xFF;
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+				rowSum += value;
+				integral[(y + 1) * stride + x + 1] = integral[y * stride + x + 1] + rowSum;
+			}
+		}
+
+		// Uniformly dark neighbourhoods (inside large dark modules) fall back to a
+		// global threshold
+		int globalThreshold = (min + max) / 2;
+		int radius = Math.max(MIN_WINDOW_RADIUS, Math.min(width, height) / 16);
+		byte[] dark = new byte[width * height];
+		for (int y = 0; y < height; y++) {
+			int top = Math.max(0, y - radius);
+			int bottom = Math.min(height, y + radius + 1);
+			for (int x = 0; x < width; x++) {
+				int left = Math.max(0, x - radius);
+				int right = Math.min(width, x + radius + 1);
+				long area = (long) (bottom - top) * (right - left);
+				long sum = integral[bottom * stride + right] - integral[top * stride + right]
+						- integral[bottom * stride + left] + integral[top * stride + left];
+
+				int value = luminance[y * width + x] & 0xFF;
+				boolean isDark = value * area * 100 <= sum * (100 - THRESHOLD_PERCENT)
+						|| (value < globalThreshold && sum < globalThreshold * area);
+				dark[y * width + x] = (byte) (isDark ? 1 : 0);
+			}
+		}
+		return new BinaryImage(dark, width, height);
+	}
+
+	static final class BinaryImage {
+
+		final byte[] dark;
+		final int width;
+		final int height;
+
+		BinaryImage(byte[] dark, int width, int height) {
+			this.dark = dark;
+			this.width = width;
+			this.height = height;
+		}
+
+		boolean isDark(int x, int y) {
+			return dark[y * width + x] == 1;
+		}
+
+		boolean contains(int x, int y) {
+			return x >= 0 && y >= 0 && x < width && y < height;
+		}
+	}
+}
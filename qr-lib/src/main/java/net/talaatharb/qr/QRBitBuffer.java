@@ -0,0 +1,46 @@
+package net.talaatharb.qr;
+
+import java.util.Arrays;
+
+// Growable most-significant-bit-first buffer for segment bits
+final class QRBitBuffer {
+
+	private static final int PAD_EVEN = 0xEC;
+	private static final int PAD_ODD = 0x11;
+	private static final int TERMINATOR_BITS = 4;
+
+	private byte[] bytes;
+	private int length;
+
+	QRBitBuffer(int capacityBits) {
+		bytes = new byte[Math.max(1, (capacityBits + 7) / 8)];
+	}
+
+	int length() {
+		return length;
+	}
+
+	QRBitBuffer append(int value, int bits) {
+		if (length + bits > bytes.length * 8) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, (length + bits + 7) / 8));
+		}
+		for (int i = bits - 1; i >= 0; i--, length++) {
+			bytes[length / 8] |= (byte) (((value >> i) & 1) << (7 - length % 8));
+		}
+		return this;
+	}
+
+	// Data codewords of the symbol: the bits, a terminator cut short when the
+	// symbol is full, zero bits up to a byte boundary, then alternating pad bytes
+	byte[] toDataCodewords(int dataCodewords) {
+		if (length > dataCodewords * 8) {
+			throw new IllegalArgumentException(length + " bits do not fit " + dataCodewords + " data codewords");
+		}
+		byte[] codewords = Arrays.copyOf(bytes, dataCodewords);
+		int used = (Math.min(length + TERMINATOR_BITS, dataCodewords * 8) + 7) / 8;
+		for (int i = used; i < dataCodewords; i++) {
+			codewords[i] = (byte) ((i - used) % 2 == 0 ? PAD_EVEN : PAD_ODD);
+		}
+		return codewords;
+	}
+}
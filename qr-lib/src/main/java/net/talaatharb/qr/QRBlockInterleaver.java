@@ -0,0 +1,128 @@
+package net.talaatharb.qr;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits the data codewords into the version's blocks (the last ones one
+// codeword longer), computes each block's EC codewords and writes both straight
+// to their interleaved positions: every block's first data codeword, then every
+// second one, ..., then the EC codewords the same way. Blocks never share an
+// output position, so once a symbol carries enough Reed-Solomon work, ranges of
+// blocks are forked as independent tasks onto the common pool. Ranges are never
+// cut below a vector's worth of blocks, which would trade the batched RS path
+// for scalar divisions
+final class QRBlockInterleaver extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	// GF(256) multiplications below which a range of blocks is not split further
+	static final int FORK_THRESHOLD = 16384;
+	private static final int MIN_TASK_BLOCKS = VectorSupport.isAvailable() ? VectorReedSolomon.laneCount() : 1;
+
+	private final byte[] dataCodewords;
+	private final byte[] interleaved;
+	private final int blocks;
+	private final int shortBlocks;
+	private final int shortDataLength;
+	private final int ecCodewords;
+	private final int threshold;
+	private final int from;
+	private final int to;
+
+	private QRBlockInterleaver(QRBlockInterleaver parent, int from, int to) {
+		this(parent.dataCodewords, parent.interleaved, parent.blocks, parent.shortBlocks, parent.shortDataLength,
+				parent.ecCodewords, parent.threshold, from, to);
+	}
+
+	private QRBlockInterleaver(byte[] dataCodewords, byte[] interleaved, int blocks, int shortBlocks,
+			int shortDataLength, int ecCodewords, int threshold, int from, int to) {
+		this.dataCodewords = dataCodewords;
+		this.interleaved = interleaved;
+		this.blocks = blocks;
+		this.shortBlocks = shortBlocks;
+		this.shortDataLength = shortDataLength;
+		this.ecCodewords = ecCodewords;
+		this.threshold = threshold;
+		this.from = from;
+		this.to = to;
+	}
+
+	// Forking only pays off with more than one worker to run the tasks
+	static byte[] interleave(byte[] dataCodewords, int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		int threshold = ForkJoinPool.getCommonPoolParallelism() > 1 ? FORK_THRESHOLD : Integer.MAX_VALUE;
+		return interleave(dataCodewords, version, errorCorrectionLevel, threshold);
+	}
+
+	static byte[] interleave(byte[] dataCodewords, int version, ErrorCorrectionLevel errorCorrectionLevel,
+			int threshold) {
+		int blocks = QRCapacity.errorCorrectionBlocks(version, errorCorrectionLevel);
+		int ecCodewords = QRCapacity.errorCorrectionCodewordsPerBlock(version, errorCorrectionLevel);
+		int totalCodewords = QRCapacity.totalCodewords(version);
+		if (dataCodewords.length != totalCodewords - blocks * ecCodewords) {
+			throw new IllegalArgumentException("Version " + version + "-" + errorCorrectionLevel + " holds "
+					+ (totalCodewords - blocks * ecCodewords) + " data codewords");
+		}
+
+		byte[] interleaved = new byte[totalCodewords];
+		var task = new QRBlockInterleaver(dataCodewords, interleaved, blocks, blocks - totalCodewords % blocks,
+				totalCodewords / blocks - ecCodewords, ecCodewords, threshold, 0, blocks);
+		if (task.work() <= threshold) {
+			task.encode(); // not worth a task, stay on the calling thread
+		} else {
+			task.invoke();
+		}
+		return interleaved;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from < 2 * MIN_TASK_BLOCKS || work() <= threshold) {
+			encode();
+			return;
+		}
+		int middle = from + Math.max(MIN_TASK_BLOCKS, (to - from) / 2 / MIN_TASK_BLOCKS * MIN_TASK_BLOCKS);
+		invokeAll(new QRBlockInterleaver(this, from, middle), new QRBlockInterleaver(this, middle, to));
+	}
+
+	private long work() {
+		return (long) (offset(to) - offset(from)) * ecCodewords;
+	}
+
+	// Short and long blocks are encoded as separate equally sized batches so
+	// each can take the vector path
+	private void encode() {
+		encode(from, Math.min(to, shortBlocks));
+		encode(Math.max(from, shortBlocks), to);
+	}
+
+	private void encode(int first, int end) {
+		if (first >= end) {
+			return;
+		}
+		byte[][] messages = new byte[end - first][];
+		for (int block = first; block < end; block++) {
+			messages[block - first] = Arrays.copyOfRange(dataCodewords, offset(block), offset(block + 1));
+		}
+		byte[][] ecBlocks = ReedSolomon.generateErrorCorrectionCodewords(messages, ecCodewords);
+
+		for (int block = first; block < end; block++) {
+			byte[] data = messages[block - first];
+			for (int i = 0; i < shortDataLength; i++) {
+				interleaved[i * blocks + block] = data[i];
+			}
+			if (data.length > shortDataLength) {
+				interleaved[shortDataLength * blocks + block - shortBlocks] = data[shortDataLength];
+			}
+			byte[] ec = ecBlocks[block - first];
+			for (int i = 0; i < ecCodewords; i++) {
+				interleaved[dataCodewords.length + i * blocks + block] = ec[i];
+			}
+		}
+	}
+
+	// Start of the block's data codewords, long blocks all follow the short ones
+	private int offset(int block) {
+		return block * shortDataLength + Math.max(0, block - shortBlocks);
+	}
+}
@@ -0,0 +1,157 @@
+package net.talaatharb.qr;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Symbol capacities for versions 1-40 (ISO/IEC 18004 tables 7 and 9) and
+// single pass sizing of a payload against them, without encoding it
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QRCapacity {
+
+	public static final int MIN_VERSION = 1;
+	public static final int MAX_VERSION = 40;
+
+	static final String ALPHANUMERIC_CHARSET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+	// Indexed by [errorCorrectionLevel.ordinal()][version], generated at build time
+	private static final int[][] EC_CODEWORDS_PER_BLOCK = QRTables.EC_CODEWORDS_PER_BLOCK;
+	private static final int[][] EC_BLOCKS = QRTables.EC_BLOCKS;
+	private static final int[][] DATA_CODEWORDS = QRTables.DATA_CODEWORDS;
+	private static final byte[] ALPHANUMERIC_VALUES = QRTables.ALPHANUMERIC_VALUES;
+	// Bits taken by a trailing group of zero, one or two digits in numeric mode
+	private static final int[] NUMERIC_REMAINDER_BITS = { 0, 4, 7 };
+
+	public static int matrixSize(int version) {
+		checkVersion(version);
+		return 17 + 4 * version;
+	}
+
+	// Data and error correction codewords together: every module not taken by
+	// function patterns, format or version information
+	public static int totalCodewords(int version) {
+		checkVersion(version);
+		return QRTables.TOTAL_CODEWORDS[version];
+	}
+
+	public static int dataCodewords(int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		checkVersion(version);
+		return DATA_CODEWORDS[errorCorrectionLevel.ordinal()][version];
+	}
+
+	public static int errorCorrectionCodewordsPerBlock(int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		checkVersion(version);
+		return EC_CODEWORDS_PER_BLOCK[errorCorrectionLevel.ordinal()][version];
+	}
+
+	public static int errorCorrectionBlocks(int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		checkVersion(version);
+		return EC_BLOCKS[errorCorrectionLevel.ordinal()][version];
+	}
+
+	public static int dataCapacityBits(int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		return dataCodewords(version, errorCorrectionLevel) * 8;
+	}
+
+	// Value of the character in alphanumeric mode, or -1 when it has none
+	static int alphanumericValue(char c) {
+		return c < ALPHANUMERIC_VALUES.length ? ALPHANUMERIC_VALUES[c] : -1;
+	}
+
+	public static QRSizing measure(CharSequence text, ErrorCorrectionLevel errorCorrectionLevel) {
+		return measure(text, errorCorrectionLevel, new QRSizing());
+	}
+
+	// Sizes the payload as a single segment in the most compact mode able to
+	// hold it, over the whole ISO/IEC 18004 range and without case folding.
+	// This is not what QRGenerator.generate accepts: generate upper-cases its
+	// input and only produces alphanumeric version 1-L symbols, so there
+	// lowercase letters still count as alphanumeric and anything past 25
+	// characters is rejected. Fills and returns the given result so callers
+	// validating on every keystroke can reuse one instance and allocate nothing
+	public static QRSizing measure(CharSequence text, ErrorCorrectionLevel errorCorrectionLevel, QRSizing result) {
+		int length = text.length();
+		boolean numeric = true;
+		boolean alphanumeric = true;
+		int utf8Length = 0;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			int value = alphanumericValue(c);
+			numeric &= value >= 0 && value < 10;
+			alphanumeric &= value >= 0;
+			if (c < 0x80) {
+				utf8Length += 1;
+			} else if (c < 0x800) {
+				utf8Length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+				utf8Length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				utf8Length += 1; // replaced by '?' when encoded
+			} else {
+				utf8Length += 3;
+			}
+		}
+
+		QRMode mode;
+		int characterCount;
+		int payloadBits;
+		if (length > 0 && numeric) {
+			mode = QRMode.NUMERIC;
+			characterCount = length;
+			payloadBits = 10 * (length / 3) + NUMERIC_REMAINDER_BITS[length % 3];
+		} else if (length > 0 && alphanumeric) {
+			mode = QRMode.ALPHANUMERIC;
+			characterCount = length;
+			payloadBits = 11 * (length / 2) + 6 * (length % 2);
+		} else {
+			mode = QRMode.BYTE;
+			characterCount = utf8Length;
+			payloadBits = 8 * utf8Length;
+		}
+
+		return fit(mode, characterCount, payloadBits, errorCorrectionLevel, result);
+	}
+
+	private static QRSizing fit(QRMode mode, int characterCount, int payloadBits,
+			ErrorCorrectionLevel errorCorrectionLevel, QRSizing result) {
+		result.errorCorrectionLevel = errorCorrectionLevel;
+		result.mode = mode;
+		result.characterCount = characterCount;
+		result.version = 0;
+		result.bitLength = QRMode.INDICATOR_BITS + mode.characterCountBits(MAX_VERSION) + payloadBits;
+		result.remainingBits = 0;
+		result.remainingCharacters = 0;
+
+		int[] dataCodewords = DATA_CODEWORDS[errorCorrectionLevel.ordinal()];
+		for (int version = MIN_VERSION; version <= MAX_VERSION; version++) {
+			int countBits = mode.characterCountBits(version);
+			int bitLength = QRMode.INDICATOR_BITS + countBits + payloadBits;
+			int capacity = dataCodewords[version] * 8;
+			if (characterCount < 1 << countBits && bitLength <= capacity) {
+				int maxCharacters = Math.min(maxCharacters(mode, capacity - QRMode.INDICATOR_BITS - countBits),
+						(1 << countBits) - 1);
+				result.version = version;
+				result.bitLength = bitLength;
+				result.remainingBits = capacity - bitLength;
+				result.remainingCharacters = maxCharacters - characterCount;
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static int maxCharacters(QRMode mode, int availableBits) {
+		return switch (mode) {
+		case NUMERIC -> 3 * (availableBits / 10) + (availableBits % 10 >= 7 ? 2 : availableBits % 10 >= 4 ? 1 : 0);
+		case ALPHANUMERIC -> 2 * (availableBits / 11) + (availableBits % 11 >= 6 ? 1 : 0);
+		case BYTE -> availableBits / 8;
+		case FNC1_FIRST -> 0;
+		};
+	}
+
+	private static void checkVersion(int version) {
+		if (version < MIN_VERSION || version > MAX_VERSION) {
+			throw new IllegalArgumentException("Invalid version " + version);
+		}
+	}
+}
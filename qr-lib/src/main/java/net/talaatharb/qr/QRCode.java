@@ -0,0 +1,122 @@
+package net.talaatharb.qr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+// Immutable generated symbol. Modules are kept packed row-major, most
+// significant bit first; other representations are built on first use and
+// memoized (Lombok lazy getters are thread-safe)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
+public final class QRCode {
+
+	@Getter
+	@EqualsAndHashCode.Include
+	@ToString.Include
+	private final int version;
+	@Getter
+	@EqualsAndHashCode.Include
+	@ToString.Include
+	private final ErrorCorrectionLevel errorCorrectionLevel;
+	@Getter
+	@EqualsAndHashCode.Include
+	@ToString.Include
+	private final int maskPattern;
+	@Getter
+	@ToString.Include
+	private final List<QRSegment> segments;
+	@Getter
+	@ToString.Include
+	private final int size;
+	@EqualsAndHashCode.Include
+	private final byte[] modules;
+
+	@Getter(value = AccessLevel.PACKAGE, lazy = true)
+	private final int[][] matrix = unpack();
+	@Getter(value = AccessLevel.PRIVATE, lazy = true)
+	private final byte[] png = renderPNG();
+	@Getter(value = AccessLevel.PRIVATE, lazy = true)
+	private final String svg = QRRenderer.toSVG(getMatrix(), QRRenderer.DEFAULT_QUIET_ZONE);
+	@Getter(value = AccessLevel.PRIVATE, lazy = true)
+	private final String text = new QRTextRenderer().render(this);
+
+	QRCode(int version, ErrorCorrectionLevel errorCorrectionLevel, int maskPattern, List<QRSegment> segments,
+			int[][] qrMatrix) {
+		this.version = version;
+		this.errorCorrectionLevel = errorCorrectionLevel;
+		this.maskPattern = maskPattern;
+		this.segments = List.copyOf(segments);
+		this.size = qrMatrix.length;
+		this.modules = pack(qrMatrix);
+	}
+
+	public boolean isDark(int row, int col) {
+		int bit = row * size + col;
+		return ((modules[bit / 8] >> (7 - bit % 8)) & 1) == 1;
+	}
+
+	public ByteBuffer packedModules() {
+		return ByteBuffer.wrap(modules).asReadOnlyBuffer();
+	}
+
+	public int[][] toMatrix() {
+		int[][] matrix = getMatrix();
+		int[][] copy = new int[size][];
+		for (int row = 0; row < size; row++) {
+			copy[row] = matrix[row].clone();
+		}
+		return copy;
+	}
+
+	public byte[] toPNG() {
+		return getPng().clone();
+	}
+
+	public String toSVG() {
+		return getSvg();
+	}
+
+	public String toText() {
+		return getText();
+	}
+
+	private static byte[] pack(int[][] qrMatrix) {
+		int size = qrMatrix.length;
+		byte[] packed = new byte[(size * size + 7) / 8];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				int bit = row * size + col;
+				packed[bit / 8] |= (byte) (qrMatrix[row][col] << (7 - bit % 8));
+			}
+		}
+		return packed;
+	}
+
+	private int[][] unpack() {
+		int[][] qrMatrix = new int[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				qrMatrix[row][col] = isDark(row, col) ? 1 : 0;
+			}
+		}
+		return qrMatrix;
+	}
+
+	private byte[] renderPNG() {
+		var out = new ByteArrayOutputStream();
+		try {
+			QRRenderer.writePNG(out, QRRenderer.DEFAULT_SCALE, getMatrix());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
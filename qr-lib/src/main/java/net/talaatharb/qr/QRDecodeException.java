@@ -0,0 +1,10 @@
+package net.talaatharb.qr;
+
+public class QRDecodeException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public QRDecodeException(String message) {
+		super(message);
+	}
+}
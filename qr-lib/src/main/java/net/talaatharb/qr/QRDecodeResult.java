@@ -0,0 +1,25 @@
+package net.talaatharb.qr;
+
+import lombok.Value;
+import lombok.With;
+
+@Value
+public class QRDecodeResult {
+
+	String text;
+	// FNC1 in first position: text is a GS1 element string, see GS1.parse
+	boolean gs1;
+	int version;
+	ErrorCorrectionLevel errorCorrectionLevel;
+	int maskPattern;
+	int correctedErrors;
+	int correctableErrors;
+	@With
+	long decodeNanos;
+
+	// Share of the error correction capacity consumed, a quality margin for the
+	// printed or rendered symbol
+	public double errorCorrectionUsage() {
+		return correctableErrors == 0 ? 0 : (double) correctedErrors / correctableErrors;
+	}
+}
@@ -0,0 +1,259 @@
+package net.talaatharb.qr;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QRDecoder {
+
+	static final int MAX_FORMAT_DISTANCE = 3;
+
+	private static final int MODE_TERMINATOR = 0b0000;
+	private static final int MODE_NUMERIC = 0b0001;
+	private static final int MODE_ALPHANUMERIC = 0b0010;
+	private static final int MODE_BYTE = 0b0100;
+	private static final int MODE_FNC1_FIRST = 0b0101;
+	private static final int[] POWERS_OF_TEN = { 1, 10, 100, 1000 };
+	private static final String ALPHANUMERIC_CHARSET = QRCapacity.ALPHANUMERIC_CHARSET;
+
+	public static QRDecodeResult decode(int[][] modules) {
+		long start = System.nanoTime();
+		int size = modules.length;
+		QRVersionLayout layout;
+		try {
+			layout = QRVersionLayout.forSize(size);
+		} catch (IllegalArgumentException e) {
+			throw new QRDecodeException("Unsupported symbol size " + size);
+		}
+		int version = layout.getVersion();
+
+		int format = readFormat(modules);
+		var errorCorrectionLevel = ErrorCorrectionLevel.values()[format >> 3];
+		int maskPattern = format & 0b111;
+
+		int[] codewords = readCodewords(modules, maskPattern);
+		int dataCodewords = QRCapacity.dataCodewords(version, errorCorrectionLevel);
+		int blocks = QRCapacity.errorCorrectionBlocks(version, errorCorrectionLevel);
+		int ecCodewords = QRCapacity.errorCorrectionCodewordsPerBlock(version, errorCorrectionLevel);
+		int[][] blockCodewords = deinterleave(codewords, blocks, ecCodewords);
+		int[] data = new int[dataCodewords];
+		int corrected = 0;
+		for (int i = 0, offset = 0; i < blocks; i++) {
+			int blockCorrected = ReedSolomon.correctErrors(blockCodewords[i], ecCodewords);
+			if (blockCorrected < 0) {
+				throw new QRDecodeException("Too many errors to correct");
+			}
+			corrected += blockCorrected;
+			int length = blockCodewords[i].length - ecCodewords;
+			System.arraycopy(blockCodewords[i], 0, data, offset, length);
+			offset += length;
+		}
+
+		boolean gs1 = (data[0] >> 4) == MODE_FNC1_FIRST;
+		String text = readSegments(data, dataCodewords, version);
+		return new QRDecodeResult(text, gs1, version, errorCorrectionLevel, maskPattern, corrected,
+				blocks * (ecCodewords / 2), System.nanoTime() - start);
+	}
+
+	// Returns (errorCorrectionLevel << 3) | maskPattern of the closest valid
+	// format information in either copy
+	static final int readFormat(int[][] modules) {
+		int size = modules.length;
+		int[][] positions = QRVersionLayout.forSize(size).getFormatBitPositions();
+		int[] copies = new int[positions.length];
+		for (int copy = 0; copy < copies.length; copy++) {
+			for (int i = 0; i < QRGenerator.FORMAT_BITS_LENGTH; i++) {
+				int position = positions[copy][i];
+				copies[copy] |= modules[position / size][position % size] << i;
+			}
+		}
+
+		int best = -1;
+		int bestDistance = Integer.MAX_VALUE;
+		for (int level = 0; level < ErrorCorrectionLevel.values().length; level++) {
+			for (int mask = 0; mask < QRMasking.MASK_PATTERNS; mask++) {
+				int expected = QRGenerator.calculateFormatBits(level, mask);
+				for (int copy : copies) {
+					int distance = Integer.bitCount(expected ^ copy);
+					if (distance < bestDistance) {
+						best = (level << 3) | mask;
+						bestDistance = distance;
+					}
+				}
+			}
+		}
+		if (bestDistance > MAX_FORMAT_DISTANCE) {
+			throw new QRDecodeException("Unreadable format information");
+		}
+		return best;
+	}
+
+	static final int[] readCodewords(int[][] modules, int maskPattern) {
+		int size = modules.length;
+		var layout = QRVersionLayout.forSize(size);
+		int[] positions = layout.getDataPositions();
+		int[] codewords = new int[QRCapacity.totalCodewords(layout.getVersion())];
+		for (int i = 0; i < codewords.length * 8; i++) {
+			int row = positions[i] / size;
+			int col = positions[i] % size;
+			int bit = modules[row][col];
+			if (QRGenerator.shouldFlipBit(maskPattern, row, col)) {
+				bit ^= 1;
+			}
+			codewords[i / 8] |= bit << (7 - i % 8);
+		}
+		return codewords;
+	}
+
+	// Reverses QRGenerator.interleave: each block's data codewords followed by
+	// its EC codewords, the later blocks holding one more data codeword
+	static final int[][] deinterleave(int[] codewords, int blocks, int ecCodewords) {
+		int shortBlocks = blocks - codewords.length % blocks;
+		int shortDataLength = codewords.length / blocks - ecCodewords;
+		int[][] blockCodewords = new int[blocks][];
+		for (int block = 0; block < blocks; block++) {
+			blockCodewords[block] = new int[shortDataLength + (block < shortBlocks ? 0 : 1) + ecCodewords];
+		}
+
+		int index = 0;
+		for (int i = 0; i <= shortDataLength; i++) {
+			for (int[] block : blockCodewords) {
+				if (i < block.length - ecCodewords) {
+					block[i] = codewords[index++];
+				}
+			}
+		}
+		for (int i = 0; i < ecCodewords; i++) {
+			for (int[] block : blockCodewords) {
+				block[block.length - ecCodewords + i] = codewords[index++];
+			}
+		}
+		return blockCodewords;
+	}
+
+	static final String readSegments(int[] block, int dataCodewords) {
+		return readSegments(block, dataCodewords, QRCapacity.MIN_VERSION);
+	}
+
+	// With FNC1 in first position the data is a GS1 element string: '%' in
+	// alphanumeric segments stands for the group separator and '%%' for '%'
+	static final String readSegments(int[] block, int dataCodewords, int version) {
+		var bits = new BitReader(block, dataCodewords * 8);
+		var text = new StringBuilder();
+		boolean gs1 = false;
+		while (bits.remaining() >= 4) {
+			int mode = bits.read(4);
+			switch (mode) {
+				case MODE_TERMINATOR:
+					return text.toString();
+				case MODE_FNC1_FIRST:
+					gs1 = true;
+					break;
+				case MODE_NUMERIC:
+					readNumeric(bits, bits.read(QRMode.NUMERIC.characterCountBits(version)), text);
+					break;
+				case MODE_ALPHANUMERIC:
+					int segmentStart = text.length();
+					readAlphanumeric(bits, bits.read(QRMode.ALPHANUMERIC.characterCountBits(version)), text);
+					if (gs1) {
+						replaceFNC1(text, segmentStart);
+					}
+					break;
+				case MODE_BYTE:
+					readBytes(bits, bits.read(QRMode.BYTE.characterCountBits(version)), text);
+					break;
+				default:
+					throw new QRDecodeException("Unsupported mode " + mode);
+			}
+		}
+		return text.toString();
+	}
+
+	private static void replaceFNC1(StringBuilder text, int from) {
+		int write = from;
+		for (int read = from; read < text.length(); read++, write++) {
+			char c = text.charAt(read);
+			if (c == '%') {
+				boolean literal = read + 1 < text.length() && text.charAt(read + 1) == '%';
+				c = literal ? '%' : GS1.GROUP_SEPARATOR;
+				read += literal ? 1 : 0;
+			}
+			text.setCharAt(write, c);
+		}
+		text.setLength(write);
+	}
+
+	private static void readNumeric(BitReader bits, int count, StringBuilder text) {
+		for (; count >= 3; count -= 3) {
+			appendDigits(text, bits.read(10), 3);
+		}
+		if (count == 2) {
+			appendDigits(text, bits.read(7), 2);
+		} else if (count == 1) {
+			appendDigits(text, bits.read(4), 1);
+		}
+	}
+
+	private static void appendDigits(StringBuilder text, int value, int digits) {
+		if (value >= POWERS_OF_TEN[digits]) {
+			throw new QRDecodeException("Invalid numeric group");
+		}
+		String group = Integer.toString(value);
+		text.append("000", 0, digits - group.length()).append(group);
+	}
+
+	private static void readAlphanumeric(BitReader bits, int count, StringBuilder text) {
+		for (; count >= 2; count -= 2) {
+			int value = bits.read(11);
+			if (value >= 45 * 45) {
+				throw new QRDecodeException("Invalid alphanumeric pair");
+			}
+			text.append(ALPHANUMERIC_CHARSET.charAt(value / 45)).append(ALPHANUMERIC_CHARSET.charAt(value % 45));
+		}
+		if (count == 1) {
+			int value = bits.read(6);
+			if (value >= 45) {
+				throw new QRDecodeException("Invalid alphanumeric character");
+			}
+			text.append(ALPHANUMERIC_CHARSET.charAt(value));
+		}
+	}
+
+	private static void readBytes(BitReader bits, int count, StringBuilder text) {
+		var bytes = new ByteArrayOutputStream(count);
+		for (int i = 0; i < count; i++) {
+			bytes.write(bits.read(8));
+		}
+		text.append(bytes.toString(StandardCharsets.UTF_8));
+	}
+
+	private static final class BitReader {
+
+		private final int[] codewords;
+		private final int length;
+		private int position;
+
+		BitReader(int[] codewords, int length) {
+			this.codewords = codewords;
+			this.length = length;
+		}
+
+		int remaining() {
+			return length - position;
+		}
+
+		int read(int count) {
+			if (count > remaining()) {
+				throw new QRDecodeException("Segment runs past the data codewords");
+			}
+			int value = 0;
+			for (int i = 0; i < count; i++, position++) {
+				value = (value << 1) | ((codewords[position / 8] >> (7 - position % 8)) & 1);
+			}
+			return value;
+		}
+	}
+}
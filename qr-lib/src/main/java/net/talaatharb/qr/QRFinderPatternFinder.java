@@ -0,0 +1,240 @@
+package net.talaatharb.qr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QRFinderPatternFinder {
+
+	static final int FINDER_MODULES = 7;
+	static final int MAX_ROWS_SCANNED = 400;
+	private static final int MAX_TRIPLE_CANDIDATES = 8;
+	private static final double MAX_GEOMETRY_ERROR = 0.5;
+
+	// Returns the top-left, top-right and bottom-left finder patterns
+	static final FinderPattern[] find(QRBinarizer.BinaryImage image) {
+		List<FinderPattern> candidates = new ArrayList<>();
+		int[] runs = new int[image.width + 1];
+		int[] counts = new int[5];
+		int step = Math.max(1, image.height / MAX_ROWS_SCANNED);
+
+		for (int y = 0; y < image.height; y += step) {
+			int runCount = rowRuns(image, y, runs);
+			int start = 0;
+			boolean dark = image.isDark(0, y);
+			for (int i = 0; i + 4 < runCount; i++) {
+				if (dark) {
+					System.arraycopy(runs, i, counts, 0, 5);
+					if (isFinderRatio(counts)) {
+						double centerX = start + runs[i] + runs[i + 1] + runs[i + 2] / 2.0;
+						confirm(image, centerX, y, total(counts), candidates);
+					}
+				}
+				start += runs[i];
+				dark = !dark;
+			}
+		}
+		return select(candidates);
+	}
+
+	// Run lengths of alternating colours along the row, starting with the colour
+	// of the first pixel
+	private static int rowRuns(QRBinarizer.BinaryImage image, int y, int[] runs) {
+		int count = 0;
+		int length = 1;
+		for (int x = 1; x < image.width; x++) {
+			if (image.isDark(x, y) == image.isDark(x - 1, y)) {
+				length++;
+			} else {
+				runs[count++] = length;
+				length = 1;
+			}
+		}
+		runs[count++] = length;
+		return count;
+	}
+
+	// Checks the 1:1:3:1:1 dark-light-dark-light-dark proportions
+	static final boolean isFinderRatio(int[] counts) {
+		int total = total(counts);
+		if (total < FINDER_MODULES) {
+			return false;
+		}
+		double moduleSize = total / (double) FINDER_MODULES;
+		double maxVariance = moduleSize / 2;
+		return Math.abs(moduleSize - counts[0]) < maxVariance && Math.abs(moduleSize - counts[1]) < maxVariance
+				&& Math.abs(3 * moduleSize - counts[2]) < 3 * maxVariance
+				&& Math.abs(moduleSize - counts[3]) < maxVariance && Math.abs(moduleSize - counts[4]) < maxVariance;
+	}
+
+	private static int total(int[] counts) {
+		return counts[0] + counts[1] + counts[2] + counts[3] + counts[4];
+	}
+
+	private static void confirm(QRBinarizer.BinaryImage image, double centerX, int y, int horizontalTotal,
+			List<FinderPattern> candidates) {
+		double[] vertical = crossCheck(image, (int) centerX, y, false, horizontalTotal);
+		if (vertical == null) {
+			return;
+		}
+		double[] horizontal = crossCheck(image, (int) centerX, (int) vertical[0], true, horizontalTotal);
+		if (horizontal == null) {
+			return;
+		}
+
+		double x = horizontal[0];
+		double centerY = vertical[0];
+		double moduleSize = (horizontal[1] + vertical[1]) / (2.0 * FINDER_MODULES);
+		for (FinderPattern candidate : candidates) {
+			if (candidate.isNear(x, centerY, moduleSize)) {
+				candidate.merge(x, centerY, moduleSize);
+				return;
+			}
+		}
+		candidates.add(new FinderPattern(x, centerY, moduleSize));
+	}
+
+	// Measures the pattern through (x, y) along a row or column, returns the
+	// refined center and the total width, or null when the proportions are off
+	private static double[] crossCheck(QRBinarizer.BinaryImage image, int x, int y, boolean horizontal,
+			int expectedTotal) {
+		if (!image.contains(x, y) || !image.isDark(x, y)) {
+			return null;
+		}
+		int[] counts = new int[5];
+		int dx = horizontal ? 1 : 0;
+		int dy = horizontal ? 0 : 1;
+
+		int i = -1;
+		i = walk(image, x, y, dx, dy, i, -1, true, counts, 2);
+		i = walk(image, x, y, dx, dy, i, -1, false, counts, 1);
+		walk(image, x, y, dx, dy, i, -1, true, counts, 0);
+
+		int j = 0;
+		j = walk(image, x, y, dx, dy, j, 1, true, counts, 2);
+		j = walk(image, x, y, dx, dy, j, 1, false, counts, 3);
+		j = walk(image, x, y, dx, dy, j, 1, true, counts, 4);
+
+		int total = total(counts);
+		if (5 * Math.abs(total - expectedTotal) >= 2 * expectedTotal || !isFinderRatio(counts)) {
+			return null;
+		}
+		int origin = horizontal ? x : y;
+		double center = origin + j - counts[4] - counts[3] - counts[2] / 2.0;
+		return new double[] { center, total };
+	}
+
+	private static int walk(QRBinarizer.BinaryImage image, int x, int y, int dx, int dy, int offset, int direction,
+			boolean dark, int[] counts, int index) {
+		while (image.contains(x + offset * dx, y + offset * dy)
+				&& image.isDark(x + offset * dx, y + offset * dy) == dark) {
+			counts[index]++;
+			offset += direction;
+		}
+		return offset;
+	}
+
+	private static FinderPattern[] select(List<FinderPattern> candidates) {
+		if (candidates.size() < 3) {
+			throw new QRDecodeException("Finder patterns not found");
+		}
+		candidates.sort(Comparator.comparingInt((FinderPattern pattern) -> pattern.count).reversed());
+		int limit = Math.min(candidates.size(), MAX_TRIPLE_CANDIDATES);
+
+		FinderPattern[] best = null;
+		double bestScore = MAX_GEOMETRY_ERROR;
+		for (int a = 0; a < limit; a++) {
+			for (int b = a + 1; b < limit; b++) {
+				for (int c = b + 1; c < limit; c++) {
+					FinderPattern[] triple = { candidates.get(a), candidates.get(b), candidates.get(c) };
+					double score = score(triple);
+					if (score < bestScore) {
+						best = triple;
+						bestScore = score;
+					}
+				}
+			}
+		}
+		if (best == null) {
+			throw new QRDecodeException("Finder patterns not found");
+		}
+		return orient(best);
+	}
+
+	// Deviation from a right isosceles triangle of equally sized patterns
+	private static double score(FinderPattern[] triple) {
+		double[] sides = { triple[0].distance(triple[1]), triple[0].distance(triple[2]),
+				triple[1].distance(triple[2]) };
+		Arrays.sort(sides);
+		double legs = Math.abs(sides[0] - sides[1]) / sides[1];
+		double hypotenuse = Math.abs(sides[2] - Math.hypot(sides[0], sides[1])) / sides[2];
+
+		double minModule = Math.min(triple[0].moduleSize, Math.min(triple[1].moduleSize, triple[2].moduleSize));
+		double maxModule = Math.max(triple[0].moduleSize, Math.max(triple[1].moduleSize, triple[2].moduleSize));
+		return legs + hypotenuse + (maxModule - minModule) / minModule;
+	}
+
+	// The top-left pattern is opposite the longest side, the other two are
+	// ordered so that top-left -> top-right -> bottom-left turns clockwise
+	private static FinderPattern[] orient(FinderPattern[] triple) {
+		double ab = triple[0].distance(triple[1]);
+		double ac = triple[0].distance(triple[2]);
+		double bc = triple[1].distance(triple[2]);
+
+		FinderPattern topLeft;
+		FinderPattern first;
+		FinderPattern second;
+		if (bc >= ab && bc >= ac) {
+			topLeft = triple[0];
+			first = triple[1];
+			second = triple[2];
+		} else if (ac >= ab) {
+			topLeft = triple[1];
+			first = triple[0];
+			second = triple[2];
+		} else {
+			topLeft = triple[2];
+			first = triple[0];
+			second = triple[1];
+		}
+
+		double cross = (first.x - topLeft.x) * (second.y - topLeft.y) - (first.y - topLeft.y) * (second.x - topLeft.x);
+		return cross > 0 ? new FinderPattern[] { topLeft, first, second }
+				: new FinderPattern[] { topLeft, second, first };
+	}
+
+	static final class FinderPattern {
+
+		double x;
+		double y;
+		double moduleSize;
+		int count = 1;
+
+		FinderPattern(double x, double y, double moduleSize) {
+			this.x = x;
+			this.y = y;
+			this.moduleSize = moduleSize;
+		}
+
+		boolean isNear(double otherX, double otherY, double otherModuleSize) {
+			return Math.abs(otherX - x) <= moduleSize && Math.abs(otherY - y) <= moduleSize
+					&& Math.abs(otherModuleSize - moduleSize) <= Math.max(1, moduleSize / 2);
+		}
+
+		void merge(double otherX, double otherY, double otherModuleSize) {
+			x = (x * count + otherX) / (count + 1);
+			y = (y * count + otherY) / (count + 1);
+			moduleSize = (moduleSize * count + otherModuleSize) / (count + 1);
+			count++;
+		}
+
+		double distance(FinderPattern other) {
+			return Math.hypot(other.x - x, other.y - y);
+		}
+	}
+}
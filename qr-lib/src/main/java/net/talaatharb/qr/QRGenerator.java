@@ -1,8 +1,13 @@
 package net.talaatharb.qr;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiPredicate;
+import java.util.stream.IntStream;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -15,46 +20,175 @@ public class QRGenerator {
 	static final int CODEWORDS_SIZE_BYTES = 19;
 	static final String MODE_INDICATOR = "0010"; // Alphanumeric mode
 	static final Integer CODE_WORD_COUNT = 7; // L
+	static final int VERSION = 1;
 	static final int MATRIX_SIZE = 21; // 21x21 for Version 1
+	static final int FORMAT_BITS_LENGTH = 15;
+	static final int PARALLEL_MASK_MIN_SIZE = 57; // version 10
+
+	private static final int[] DATA_MODULE_POSITIONS = dataModulePositions(MATRIX_SIZE);
+	private static final int[][] FORMAT_BIT_POSITIONS = formatBitPositions(MATRIX_SIZE);
+	private static final ErrorCorrectionLevel[] ERROR_CORRECTION_LEVELS = ErrorCorrectionLevel.values();
+
+	// Logs the length only: formatting the text would copy it into a String
+	// and write user payloads to the log
+	public static final QRCode generate(CharSequence text) {
+		log.info("Generating QR for {} payload characters", text == null ? 0 : text.length());
+		return encode(text);
+	}
 
-	private static final String ALPHANUMERIC_CHARSET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
-	private static final Map<Character, Integer> charToValueMap = new HashMap<>();
+	// UTF-8 payload read in place, without decoding it to a String
+	public static final QRCode generate(byte[] payload, int offset, int length) {
+		log.info("Generating QR for {} payload bytes", length);
+		return encode(payload, offset, length);
+	}
 
-	static {
-		// Populate the map with character values for alphanumeric encoding
-		for (int i = 0; i < ALPHANUMERIC_CHARSET.length(); i++) {
-			charToValueMap.put(ALPHANUMERIC_CHARSET.charAt(i), i);
-		}
+	// Reads the remaining bytes of the buffer (heap or direct) with absolute
+	// gets, leaving its position untouched
+	public static final QRCode generate(ByteBuffer payload) {
+		log.info("Generating QR for {} payload bytes", payload.remaining());
+		return encode(payload);
+	}
+
+	// Generation without per-call logging, used by the batch paths
+	static final QRCode encode(CharSequence text) {
+		return encode(dataCodewords(text), text == null ? 0 : text.length());
+	}
+
+	static final QRCode encode(byte[] payload, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, payload.length);
+		return encode(dataCodewords(payload, offset, length), length);
+	}
+
+	static final QRCode encode(ByteBuffer payload) {
+		return encode(dataCodewords(payload), payload.remaining());
 	}
 
-	public static final int[][] generate(String text) {
-		log.info("Generating QR for the text: {}", text);
-		if (isValidInput(text)) {
-			var dataBitsWithEC = calculateFinalData(text);
-			var qrMatrix = placeDataInMatrix(dataBitsWithEC);
-			return applyMask(qrMatrix);
-		} else {
+	private static QRCode encode(byte[] dataCodewords, int characterCount) {
+		if (dataCodewords == null) {
 			throw new UnsupportedOperationException("Not valid input");
 		}
+		var qrMatrix = placeDataInMatrix(addErrorCorrection(dataCodewords));
+		int maskPattern = selectMask(qrMatrix);
+		var segments = List.of(new QRSegment(QRMode.ALPHANUMERIC, characterCount));
+		return new QRCode(VERSION, ErrorCorrectionLevel.L, maskPattern, segments, applyMask(maskPattern, qrMatrix));
+	}
+
+	public static final QRCode generateGS1(CharSequence elementString) {
+		return generateGS1(elementString, ErrorCorrectionLevel.L);
+	}
+
+	// FNC1 first position symbol for GS1 element strings, in bracketed
+	// "(01)...(17)..." or raw form, split into the densest segments and placed
+	// in the smallest version that holds them
+	public static final QRCode generateGS1(CharSequence elementString, ErrorCorrectionLevel errorCorrectionLevel) {
+		log.info("Generating GS1 QR for: {}", elementString);
+		String data = GS1.encodedData(GS1.parse(elementString));
+
+		QRMode[] modes = null;
+		int bitLength = 0;
+		for (int version = QRCapacity.MIN_VERSION; version <= QRCapacity.MAX_VERSION; version++) {
+			if (modes == null || QRSegmentation.countBitsChange(version)) {
+				modes = QRSegmentation.modes(data, version, true);
+				bitLength = QRMode.INDICATOR_BITS + QRSegmentation.bitLength(data, modes, version, true);
+			}
+			if (bitLength <= QRCapacity.dataCapacityBits(version, errorCorrectionLevel)) {
+				var bits = new QRBitBuffer(bitLength).append(QRMode.FNC1_FIRST.getIndicator(), QRMode.INDICATOR_BITS);
+				QRSegmentation.write(bits, data, modes, version, true);
+				var segments = new ArrayList<QRSegment>();
+				segments.add(new QRSegment(QRMode.FNC1_FIRST, 0));
+				segments.addAll(QRSegmentation.segments(data, modes, true));
+				return encode(bits, segments, version, errorCorrectionLevel);
+			}
+		}
+		throw new UnsupportedOperationException("GS1 data does not fit a version " + QRCapacity.MAX_VERSION + " symbol");
+	}
+
+	// Symbol of the given version holding the already encoded segment bits
+	static final QRCode encode(QRBitBuffer bits, List<QRSegment> segments, int version,
+			ErrorCorrectionLevel errorCorrectionLevel) {
+		var layout = QRVersionLayout.of(version);
+		byte[] dataCodewords = bits.toDataCodewords(QRCapacity.dataCodewords(version, errorCorrectionLevel));
+		byte[] codewords = interleave(dataCodewords, version, errorCorrectionLevel);
+
+		int size = layout.getSize();
+		int[] positions = layout.getDataPositions();
+		int[][] qrMatrix = layout.newMatrix();
+		// Any remainder modules past the last codeword stay light
+		for (int i = 0; i < codewords.length * 8; i++) {
+			qrMatrix[positions[i] / size][positions[i] % size] = (codewords[i / 8] >> (7 - i % 8)) & 1;
+		}
 
+		int maskPattern = selectMask(errorCorrectionLevel, qrMatrix);
+		return new QRCode(version, errorCorrectionLevel, maskPattern, segments,
+				applyMask(errorCorrectionLevel, maskPattern, qrMatrix));
 	}
 
-	static byte[] calculateFinalData(String text) {
-		var encodedData = encodeAlphanumeric(text);
-		var dataBits = dataBits(encodedData);
-		int lengthInBits = encodedData.length();
-		var paddedDataBits = padDataBits(dataBits, lengthInBits, CODEWORDS_SIZE_BYTES);
-		return addErrorCorrection(paddedDataBits);
+	// Block splitting, EC per block and interleaving, forked across cores for
+	// large symbols
+	static final byte[] interleave(byte[] dataCodewords, int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		return QRBlockInterleaver.interleave(dataCodewords, version, errorCorrectionLevel);
 	}
 
-	static final boolean isValidInput(String text) {
-    	if (text == null || text.isEmpty() || text.length() > 25) return false;
-    	for (char c : text.toUpperCase().toCharArray()) {
-    	    if (!charToValueMap.containsKey(c)) return false;
-    	}
-    	return true;
+	static byte[] calculateFinalData(CharSequence text) {
+		return addErrorCorrection(dataCodewords(text));
 	}
 
+	// Validates and encodes in one pass: each character goes through the
+	// alphanumeric lookup table straight into the padded data codewords.
+	// Returns null when the payload is not valid input
+	static final byte[] dataCodewords(CharSequence text) {
+		int length = text == null ? 0 : text.length();
+		if (!fitsVersion(length)) {
+			return null;
+		}
+		var writer = new AlphanumericWriter(length);
+		for (int i = 0; i < length; i++) {
+			if (!writer.write(Character.toUpperCase(text.charAt(i)))) {
+				return null;
+			}
+		}
+		return writer.finish();
+	}
+
+	// Alphanumeric characters are all ASCII, so UTF-8 bytes are looked up
+	// directly and any multi-byte sequence is rejected on its first byte
+	static final byte[] dataCodewords(byte[] payload, int offset, int length) {
+		if (!fitsVersion(length)) {
+			return null;
+		}
+		var writer = new AlphanumericWriter(length);
+		for (int i = offset; i < offset + length; i++) {
+			if (!writer.write(toUpperCase(payload[i]))) {
+				return null;
+			}
+		}
+		return writer.finish();
+	}
+
+	static final byte[] dataCodewords(ByteBuffer payload) {
+		int length = payload.remaining();
+		if (!fitsVersion(length)) {
+			return null;
+		}
+		var writer = new AlphanumericWriter(length);
+		for (int i = payload.position(); i < payload.limit(); i++) {
+			if (!writer.write(toUpperCase(payload.get(i)))) {
+				return null;
+			}
+		}
+		return writer.finish();
+	}
+
+	private static boolean fitsVersion(int length) {
+		return length > 0 && length <= 25;
+	}
+
+	private static char toUpperCase(byte b) {
+		return (char) (b >= 'a' && b <= 'z' ? b - ('a' - 'A') : b & 0xFF);
+	}
+
+	// Bit-string form of the alphanumeric segment, generation goes through
+	// dataCodewords instead
 	static final String encodeAlphanumeric(String text) {
 		StringBuilder encoded = new StringBuilder();
 
@@ -71,12 +205,13 @@ public class QRGenerator {
 		for (int i = 0; i < length; i += 2) {
 			if (i + 1 < length) {
 				// Two characters to encode
-				int value = (charToValueMap.get(input.charAt(i)) * 45) + charToValueMap.get(input.charAt(i + 1));
+				int value = QRCapacity.alphanumericValue(input.charAt(i)) * 45
+						+ QRCapacity.alphanumericValue(input.charAt(i + 1));
 				String encodedValue = String.format("%11s", Integer.toBinaryString(value)).replace(' ', '0');
 				encoded.append(encodedValue);
 			} else {
 				// Last character (odd case)
-				int value = charToValueMap.get(input.charAt(i));
+				int value = QRCapacity.alphanumericValue(input.charAt(i));
 				String encodedValue = String.format("%6s", Integer.toBinaryString(value)).replace(' ', '0');
 				encoded.append(encodedValue);
 			}
@@ -191,8 +326,8 @@ public class QRGenerator {
 	static final boolean isReservedArea(int row, int col) {
 		// Finder patterns
 		if ((row <= 8 && col <= 8) ||
-				(row <= 8 && col >= MATRIX_SIZE - 9) ||
-				(row >= MATRIX_SIZE - 9 && col <= 8)) {
+				(row <= 8 && col >= MATRIX_SIZE - 8) ||
+				(row >= MATRIX_SIZE - 8 && col <= 8)) {
 			return true;
 		}
 
@@ -229,51 +364,55 @@ public class QRGenerator {
 	// areas
 	static final void addErrorCorrectionAndMaskInfo(int errorCorrectionLevel, int maskPattern, int[][] qrMatrix) {
 		int formatBits = calculateFormatBits(errorCorrectionLevel, maskPattern);
-
-		// Place format bits around the top-left finder pattern
-		for (int i = 0; i < 6; i++) {
-			qrMatrix[i][8] = (formatBits >> i) & 1; // Vertical near top-left
-			qrMatrix[8][i] = (formatBits >> i) & 1; // Horizontal near top-left
+		int size = qrMatrix.length;
+		int[][] positions = size == MATRIX_SIZE ? FORMAT_BIT_POSITIONS
+				: QRVersionLayout.forSize(size).getFormatBitPositions();
+
+		for (int i = 0; i < FORMAT_BITS_LENGTH; i++) {
+			int bit = (formatBits >> i) & 1;
+			for (int[] copy : positions) {
+				qrMatrix[copy[i] / size][copy[i] % size] = bit;
+			}
 		}
 
-		// Place format bits at the dark module and the crossing of timing patterns
-		qrMatrix[8][7] = (formatBits >> 6) & 1; // Special module (always format bit 7)
-		qrMatrix[7][8] = (formatBits >> 7) & 1; // This is usually part of the timing pattern
-
 		// The dark module (fixed to 1, by QR specification)
-		qrMatrix[8][8] = 1;
-
-		// Top-right format information
-		for (int i = 0; i < 7; i++) {
-			qrMatrix[8][MATRIX_SIZE - 1 - i] = (formatBits >> (i + 8)) & 1; // Horizontal near top-right
-		}
+		qrMatrix[size - 8][8] = 1;
+	}
 
-		// Bottom-left format information
-		for (int i = 0; i < 7; i++) {
-			qrMatrix[MATRIX_SIZE - 1 - i][8] = (formatBits >> (i + 8)) & 1; // Vertical near bottom-left
+	// Position (row * size + col) of every format bit, 0 being the least
+	// significant, in the copy around the top-left finder and in the copy split
+	// between the top-right and bottom-left finders
+	static final int[][] formatBitPositions(int matrixSize) {
+		int[][] positions = new int[2][FORMAT_BITS_LENGTH];
+		for (int i = 0; i < FORMAT_BITS_LENGTH; i++) {
+			int row;
+			int col;
+			if (i < 6) {
+				row = i;
+				col = 8;
+			} else if (i < 8) {
+				row = i + 1; // skip the horizontal timing row
+				col = 8;
+			} else if (i == 8) {
+				row = 8;
+				col = 7;
+			} else {
+				row = 8;
+				col = 14 - i;
+			}
+			positions[0][i] = row * matrixSize + col;
+			positions[1][i] = i < 8 ? 8 * matrixSize + matrixSize - 1 - i : (matrixSize - 15 + i) * matrixSize + 8;
 		}
+		return positions;
 	}
 
 	// This method calculates the format bits for error correction and mask pattern
 	static final int calculateFormatBits(int errorCorrectionLevel, int maskPattern) {
-		// Error correction levels: L = 01, M = 00, Q = 11, H = 10
-		int ecBits;
-		switch (errorCorrectionLevel) {
-			case 0:
-				ecBits = 0b01;
-				break; // L
-			case 1:
-				ecBits = 0b00;
-				break; // M
-			case 2:
-				ecBits = 0b11;
-				break; // Q
-			case 3:
-				ecBits = 0b10;
-				break; // H
-			default:
-				throw new IllegalArgumentException("Invalid error correction level");
+		if (errorCorrectionLevel < 0 || errorCorrectionLevel >= ERROR_CORRECTION_LEVELS.length) {
+			throw new IllegalArgumentException("Invalid error correction level");
 		}
+		// Error correction levels: L = 01, M = 00, Q = 11, H = 10
+		int ecBits = ERROR_CORRECTION_LEVELS[errorCorrectionLevel].getFormatBits();
 
 		// Combine the error correction bits and mask pattern
 		int formatBits = (ecBits << 3) | maskPattern;
@@ -339,43 +478,94 @@ public class QRGenerator {
 	}
 
 	static final int[][] applyMask(int[][] qrMatrix) {
-		// TODO perform mask evaluation
-		int maskPattern = 0;
+		return applyMask(selectMask(qrMatrix), qrMatrix);
+	}
 
-		int[][] appliedMask = applyMask(maskPattern, qrMatrix, QRGenerator::isReservedArea);
-		addErrorCorrectionAndMaskInfo(0, maskPattern, appliedMask);
+	static final int[][] applyMask(int maskPattern, int[][] qrMatrix) {
+		return applyMask(ErrorCorrectionLevel.L, maskPattern, qrMatrix);
+	}
 
+	// Mask the data modules and write the matching format information
+	static final int[][] applyMask(ErrorCorrectionLevel errorCorrectionLevel, int maskPattern, int[][] qrMatrix) {
+		int[][] appliedMask = QRMasking.applyMask(maskPattern, qrMatrix);
+		addErrorCorrectionAndMaskInfo(errorCorrectionLevel.ordinal(), maskPattern, appliedMask);
 		return appliedMask;
 	}
 
+	static final int selectMask(int[][] qrMatrix) {
+		return selectMask(ErrorCorrectionLevel.L, qrMatrix);
+	}
+
+	// Evaluate every mask pattern and keep the one with the lowest penalty (the
+	// first on ties). Large symbols score the candidates as independent tasks,
+	// each on its own matrix
+	static final int selectMask(ErrorCorrectionLevel errorCorrectionLevel, int[][] qrMatrix) {
+		int size = qrMatrix.length;
+		if (size >= PARALLEL_MASK_MIN_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1) {
+			long best = IntStream.range(0, QRMasking.MASK_PATTERNS).parallel()
+					.mapToLong(maskPattern -> (long) maskPenalty(errorCorrectionLevel, maskPattern, qrMatrix,
+							new int[size][size]) * QRMasking.MASK_PATTERNS + maskPattern)
+					.min().getAsLong();
+			return (int) (best % QRMasking.MASK_PATTERNS);
+		}
+
+		int best = 0;
+		int bestPenalty = Integer.MAX_VALUE;
+		int[][] candidate = new int[size][size];
+		for (int maskPattern = 0; maskPattern < QRMasking.MASK_PATTERNS; maskPattern++) {
+			int penalty = maskPenalty(errorCorrectionLevel, maskPattern, qrMatrix, candidate);
+			if (penalty < bestPenalty) {
+				best = maskPattern;
+				bestPenalty = penalty;
+			}
+		}
+
+		return best;
+	}
+
+	private static int maskPenalty(ErrorCorrectionLevel errorCorrectionLevel, int maskPattern, int[][] qrMatrix,
+			int[][] candidate) {
+		QRMasking.applyMask(maskPattern, qrMatrix, candidate);
+		addErrorCorrectionAndMaskInfo(errorCorrectionLevel.ordinal(), maskPattern, candidate);
+		return QRMasking.penalty(candidate);
+	}
+
 	static final int[][] placeDataInMatrix(byte[] finalData) {
-		int dataIndex = 0;
-		int bitIndex = 7;
 		int[][] qrMatrix = new int[MATRIX_SIZE][MATRIX_SIZE];
+		int[] positions = DATA_MODULE_POSITIONS;
+
+		int bitCount = Math.min(positions.length, finalData.length * 8);
+		for (int i = 0; i < bitCount; i++) {
+			int bit = (finalData[i / 8] >> (7 - i % 8)) & 1;
+			qrMatrix[positions[i] / MATRIX_SIZE][positions[i] % MATRIX_SIZE] = bit;
+		}
 
-		int col = MATRIX_SIZE - 1;
+		fillReservedAreas(qrMatrix);
+		return qrMatrix;
+	}
+
+	// Data modules (row * size + col) in placement order: two-module wide
+	// columns from the right, alternating upwards and downwards
+	static final int[] dataModulePositions(int matrixSize) {
+		int[] positions = new int[matrixSize * matrixSize];
+		int count = 0;
+
+		int col = matrixSize - 1;
 		boolean goingUp = true;
 
 		while (col > 0) {
 			if (col == 6)
 				col--; // Skip vertical timing column
 
-			for (int i = 0; i < MATRIX_SIZE; i++) {
-				int row = goingUp ? (MATRIX_SIZE - 1 - i) : i;
+			for (int i = 0; i < matrixSize; i++) {
+				int row = goingUp ? (matrixSize - 1 - i) : i;
 
 				for (int c = 0; c < 2; c++) {
 					int actualCol = col - c;
 					if (isReservedArea(row, actualCol))
 						continue;
 
-					if (dataIndex < finalData.length) {
-						int bit = (finalData[dataIndex] >> bitIndex) & 1;
-						qrMatrix[row][actualCol] = bit;
-						if (--bitIndex < 0) {
-							bitIndex = 7;
-							dataIndex++;
-						}
-					}
+					positions[count++] = row * matrixSize + actualCol;
 				}
 			}
 
@@ -383,8 +573,7 @@ public class QRGenerator {
 			goingUp = !goingUp;
 		}
 
-		fillReservedAreas(qrMatrix);
-		return qrMatrix;
+		return Arrays.copyOf(positions, count);
 	}
 
 	static boolean isColumnDirectionDown(int col, int otherCol) {
@@ -452,4 +641,51 @@ public class QRGenerator {
 			qrMatrix[i][6] = (i % 2 == 0) ? 1 : 0; // Vertical timing pattern
 		}
 	}
+
+	// Packs alphanumeric values into a Version 1-L data codeword array,
+	// followed by the terminator and pad codewords
+	private static final class AlphanumericWriter {
+
+		private final byte[] codewords = new byte[CODEWORDS_SIZE_BYTES];
+		private int bitLength;
+		private int pending = -1;
+
+		AlphanumericWriter(int characterCount) {
+			append(QRMode.ALPHANUMERIC.getIndicator(), QRMode.INDICATOR_BITS);
+			append(characterCount, QRMode.ALPHANUMERIC.characterCountBits(VERSION));
+		}
+
+		boolean write(char c) {
+			int value = QRCapacity.alphanumericValue(c);
+			if (value < 0) {
+				return false;
+			}
+			if (pending < 0) {
+				pending = value;
+			} else {
+				append(pending * 45 + value, 11);
+				pending = -1;
+			}
+			return true;
+		}
+
+		byte[] finish() {
+			if (pending >= 0) {
+				append(pending, 6);
+			}
+			int capacity = CODEWORDS_SIZE_BYTES * 8;
+			bitLength = Math.min(bitLength + 4, capacity); // terminator bits are already zero
+			bitLength = (bitLength + 7) & ~7;
+			for (int i = bitLength / 8; i < CODEWORDS_SIZE_BYTES; i++) {
+				codewords[i] = (byte) ((i - bitLength / 8) % 2 == 0 ? 0xEC : 0x11);
+			}
+			return codewords;
+		}
+
+		private void append(int value, int bits) {
+			for (int i = bits - 1; i >= 0; i--, bitLength++) {
+				codewords[bitLength / 8] |= (byte) (((value >> i) & 1) << (7 - bitLength % 8));
+			}
+		}
+	}
 }
@@ -0,0 +1,102 @@
+package net.talaatharb.qr;
+
+import java.awt.image.BufferedImage;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QRImageReader {
+
+	private static final double FINDER_CENTER = 3.5; // module coordinate of a finder center
+
+	public static QRDecodeResult read(BufferedImage image) {
+		long start = System.nanoTime();
+		int width = image.getWidth();
+		int height = image.getHeight();
+		var result = decode(luminance(image), width, height);
+		return result.withDecodeNanos(System.nanoTime() - start);
+	}
+
+	// Luminance is one unsigned byte per pixel, row-major without padding
+	public static QRDecodeResult read(byte[] luminance, int width, int height) {
+		if (luminance.length < width * height) {
+			throw new IllegalArgumentException("Luminance buffer smaller than " + width + "x" + height);
+		}
+		long start = System.nanoTime();
+		var result = decode(luminance, width, height);
+		return result.withDecodeNanos(System.nanoTime() - start);
+	}
+
+	private static QRDecodeResult decode(byte[] luminance, int width, int height) {
+		var binary = QRBinarizer.binarize(luminance, width, height);
+		var finders = QRFinderPatternFinder.find(binary);
+		return QRDecoder.decode(sample(binary, finders));
+	}
+
+	static final byte[] luminance(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		byte[] luminance = new byte[width * height];
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			for (int x = 0; x < width; x++) {
+				int argb = row[x];
+				int alpha = argb >>> 24;
+				int value = (((argb >> 16) & 0xFF) + 2 * ((argb >> 8) & 0xFF) + (argb & 0xFF)) >> 2;
+				// Transparent pixels are read as if drawn over white
+				luminance[y * width + x] = (byte) ((value * alpha + 255 * (255 - alpha)) / 255);
+			}
+		}
+		return luminance;
+	}
+
+	// Affine sampling of every module center from the three finder centers
+	static final int[][] sample(QRBinarizer.BinaryImage image, QRFinderPatternFinder.FinderPattern[] finders) {
+		var topLeft = finders[0];
+		var topRight = finders[1];
+		var bottomLeft = finders[2];
+		int dimension = dimension(topLeft, topRight, bottomLeft);
+
+		double span = dimension - 2 * FINDER_CENTER;
+		double colX = (topRight.x - topLeft.x) / span;
+		double colY = (topRight.y - topLeft.y) / span;
+		double rowX = (bottomLeft.x - topLeft.x) / span;
+		double rowY = (bottomLeft.y - topLeft.y) / span;
+
+		int[][] modules = new int[dimension][dimension];
+		for (int row = 0; row < dimension; row++) {
+			double r = row + 0.5 - FINDER_CENTER;
+			for (int col = 0; col < dimension; col++) {
+				double c = col + 0.5 - FINDER_CENTER;
+				int x = (int) Math.floor(topLeft.x + c * colX + r * rowX);
+				int y = (int) Math.floor(topLeft.y + c * colY + r * rowY);
+				if (!image.contains(x, y)) {
+					throw new QRDecodeException("Symbol extends past the image");
+				}
+				modules[row][col] = image.isDark(x, y) ? 1 : 0;
+			}
+		}
+		return modules;
+	}
+
+	// Symbol size estimated from the finder distances, snapped to 4 * version + 17
+	static final int dimension(QRFinderPatternFinder.FinderPattern topLeft,
+			QRFinderPatternFinder.FinderPattern topRight, QRFinderPatternFinder.FinderPattern bottomLeft) {
+		double moduleSize = (topLeft.moduleSize + topRight.moduleSize + bottomLeft.moduleSize) / 3;
+		double across = topLeft.distance(topRight) / moduleSize;
+		double down = topLeft.distance(bottomLeft) / moduleSize;
+		int dimension = (int) Math.round((across + down) / 2) + 7;
+		switch (dimension % 4) {
+			case 0:
+				return dimension + 1;
+			case 2:
+				return dimension - 1;
+			case 3:
+				throw new QRDecodeException("Cannot estimate symbol size");
+			default:
+				return dimension;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package net.talaatharb.qr;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QRMasking {
+
+	static final int MASK_PATTERNS = 8;
+
+	// Penalty weights N1..N4 from the QR specification
+	static final int PENALTY_RUN = 3;
+	static final int PENALTY_BLOCK = 3;
+	static final int PENALTY_FINDER_LIKE = 40;
+	static final int PENALTY_BALANCE = 10;
+
+	private static final int MIN_RUN = 5;
+	private static final int[] FINDER_LIKE = { 1, 0, 1, 1, 1, 0, 1 };
+	private static final int FINDER_LIKE_QUIET = 4;
+
+	static final int[][] applyMask(int maskPattern, int[][] qrMatrix) {
+		int matrixSize = qrMatrix.length;
+		return applyMask(maskPattern, qrMatrix, new int[matrixSize][matrixSize]);
+	}
+
+	// Writes into the given matrix so candidate masks can share one scratch buffer
+	static final int[][] applyMask(int maskPattern, int[][] qrMatrix, int[][] appliedMask) {
+		int matrixSize = qrMatrix.length;
+		// flips[row][col] is 1 where the mask inverts a data module
+		int[][] flips = QRVersionLayout.forSize(matrixSize).flipTable(maskPattern);
+		if (VectorSupport.isAvailable()) {
+			VectorMasking.xorRows(qrMatrix, flips, appliedMask);
+		} else {
+			for (int row = 0; row < matrixSize; row++) {
+				for (int col = 0; col < matrixSize; col++) {
+					appliedMask[row][col] = qrMatrix[row][col] ^ flips[row][col];
+				}
+			}
+		}
+		return appliedMask;
+	}
+
+	static final int penalty(int[][] qrMatrix) {
+		return runPenalty(qrMatrix) + blockPenalty(qrMatrix) + finderLikePenalty(qrMatrix) + balancePenalty(qrMatrix);
+	}
+
+	// Rule 1: runs of five or more same coloured modules in a row or column
+	static final int runPenalty(int[][] qrMatrix) {
+		int size = qrMatrix.length;
+		int penalty = 0;
+		for (int i = 0; i < size; i++) {
+			int rowRun = 1;
+			int colRun = 1;
+			for (int j = 1; j < size; j++) {
+				if (qrMatrix[i][j] == qrMatrix[i][j - 1]) {
+					rowRun++;
+				} else {
+					penalty += runScore(rowRun);
+					rowRun = 1;
+				}
+				if (qrMatrix[j][i] == qrMatrix[j - 1][i]) {
+					colRun++;
+				} else {
+					penalty += runScore(colRun);
+					colRun = 1;
+				}
+			}
+			penalty += runScore(rowRun) + runScore(colRun);
+		}
+		return penalty;
+	}
+
+	private static int runScore(int run) {
+		return run >= MIN_RUN ? PENALTY_RUN + run - MIN_RUN : 0;
+	}
+
+	// Rule 2: 2x2 blocks of a single colour
+	static final int blockPenalty(int[][] qrMatrix) {
+		int blocks = VectorSupport.isAvailable() ? VectorMasking.countUniformBlocks(qrMatrix)
+				: countUniformBlocks(qrMatrix);
+		return blocks * PENALTY_BLOCK;
+	}
+
+	static final int countUniformBlocks(int[][] qrMatrix) {
+		int blocks = 0;
+		for (int row = 0; row < qrMatrix.length - 1; row++) {
+			for (int col = 0; col < qrMatrix.length - 1; col++) {
+				if (isUniformBlock(qrMatrix[row], qrMatrix[row + 1], col)) {
+					blocks++;
+				}
+			}
+		}
+		return blocks;
+	}
+
+	static final boolean isUniformBlock(int[] upper, int[] lower, int col) {
+		int module = upper[col];
+		return module == upper[col + 1] && module == lower[col] && module == lower[col + 1];
+	}
+
+	// Rule 3: 1:1:3:1:1 finder-like patterns with four light modules on either side
+	static final int finderLikePenalty(int[][] qrMatrix) {
+		int size = qrMatrix.length;
+		int window = FINDER_LIKE.length + FINDER_LIKE_QUIET;
+		int penalty = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j + window <= size; j++) {
+				if (isFinderLike(qrMatrix, i, j, true, 0, FINDER_LIKE_QUIET)) {
+					penalty += PENALTY_FINDER_LIKE;
+				}
+				if (isFinderLike(qrMatrix, i, j, true, FINDER_LIKE_QUIET, 0)) {
+					penalty += PENALTY_FINDER_LIKE;
+				}
+				if (isFinderLike(qrMatrix, i, j, false, 0, FINDER_LIKE_QUIET)) {
+					penalty += PENALTY_FINDER_LIKE;
+				}
+				if (isFinderLike(qrMatrix, i, j, false, FINDER_LIKE_QUIET, 0)) {
+					penalty += PENALTY_FINDER_LIKE;
+				}
+			}
+		}
+		return penalty;
+	}
+
+	private static boolean isFinderLike(int[][] qrMatrix, int line, int start, boolean horizontal, int quietBefore,
+			int quietAfter) {
+		int window = quietBefore + FINDER_LIKE.length + quietAfter;
+		for (int k = 0; k < window; k++) {
+			int module = horizontal ? qrMatrix[line][start + k] : qrMatrix[start + k][line];
+			int pattern = k - quietBefore;
+			int expected = pattern >= 0 && pattern < FINDER_LIKE.length ? FINDER_LIKE[pattern] : 0;
+			if (module != expected) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Rule 4: deviation of the dark module ratio from 50%, in steps of 5%
+	static final int balancePenalty(int[][] qrMatrix) {
+		int total = qrMatrix.length * qrMatrix.length;
+		int dark = VectorSupport.isAvailable() ? VectorMasking.countDarkModules(qrMatrix) : countDarkModules(qrMatrix);
+		int percent = dark * 100 / total;
+		return Math.abs(percent - 50) / 5 * PENALTY_BALANCE;
+	}
+
+	static final int countDarkModules(int[][] qrMatrix) {
+		int dark = 0;
+		for (int[] row : qrMatrix) {
+			for (int module : row) {
+				dark += module;
+			}
+		}
+		return dark;
+	}
+}
@@ -0,0 +1,27 @@
+package net.talaatharb.qr;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public enum QRMode {
+	NUMERIC(0b0001, new int[] { 10, 12, 14 }),
+	ALPHANUMERIC(0b0010, new int[] { 9, 11, 13 }),
+	BYTE(0b0100, new int[] { 8, 16, 16 }),
+	// GS1 data follows, carries no characters of its own
+	FNC1_FIRST(0b0101, new int[] { 0, 0, 0 });
+
+	static final int INDICATOR_BITS = 4;
+
+	@Getter
+	private final int indicator;
+	// Character count indicator width for versions 1-9, 10-26 and 27-40
+	private final int[] characterCountBits;
+
+	public int characterCountBits(int version) {
+		if (version < 1 || version > 40) {
+			throw new IllegalArgumentException("Invalid version " + version);
+		}
+		return characterCountBits[version < 10 ? 0 : version < 27 ? 1 : 2];
+	}
+}
@@ -0,0 +1,137 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class QRPackReader {
+
+	// Files are mapped in windows of CHUNK_SIZE bytes, each extended over the
+	// next by CHUNK_OVERLAP, so any index value or image starting in a window
+	// lies wholly inside it and packs are not limited to 2 GB
+	static final long CHUNK_SIZE = 1L << 30;
+	static final int CHUNK_OVERLAP = 1 << 24;
+
+	private final ByteBuffer[] chunks;
+	private final long chunkSize;
+	private final long entriesOffset;
+	private final int count;
+
+	public QRPackReader(ByteBuffer pack) {
+		this(new ByteBuffer[] { pack.slice().order(ByteOrder.BIG_ENDIAN) }, Long.MAX_VALUE, pack.remaining());
+	}
+
+	private QRPackReader(ByteBuffer[] chunks, long chunkSize, long length) {
+		this.chunks = chunks;
+		this.chunkSize = chunkSize;
+		if (length < QRPackWriter.HEADER_SIZE || getInt(0) != QRPackWriter.MAGIC) {
+			throw new IllegalArgumentException("Not a QR pack");
+		}
+		if (chunk(0).getShort(Integer.BYTES) != QRPackWriter.FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported QR pack version");
+		}
+		// Bytes past the index belong to an append that never completed
+		long indexOffset = getLong(QRPackWriter.INDEX_POINTER_OFFSET);
+		if (indexOffset < QRPackWriter.HEADER_SIZE || indexOffset > length - QRPackWriter.INDEX_HEADER_SIZE
+				|| getInt(indexOffset + Integer.BYTES) != QRPackWriter.MAGIC) {
+			throw new IllegalArgumentException("Corrupt QR pack index");
+		}
+		this.count = getInt(indexOffset);
+		this.entriesOffset = indexOffset + QRPackWriter.INDEX_HEADER_SIZE;
+		if (count < 0 || entriesOffset + (long) count * QRPackWriter.INDEX_ENTRY_SIZE > length) {
+			throw new IllegalArgumentException("Corrupt QR pack index");
+		}
+	}
+
+	public static QRPackReader open(Path file) throws IOException {
+		return open(file, CHUNK_SIZE, CHUNK_OVERLAP);
+	}
+
+	static QRPackReader open(Path file, long chunkSize, int overlap) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			var chunks = new ByteBuffer[(int) Math.max(1, (size + chunkSize - 1) / chunkSize)];
+			for (int i = 0; i < chunks.length; i++) {
+				long start = i * chunkSize;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, chunkSize + overlap))
+						.order(ByteOrder.BIG_ENDIAN);
+			}
+			return new QRPackReader(chunks, chunkSize, size);
+		}
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public long hash(int entry) {
+		return getLong(entryOffset(entry));
+	}
+
+	public long offset(int entry) {
+		return getLong(entryOffset(entry) + Long.BYTES);
+	}
+
+	public int length(int entry) {
+		return getInt(entryOffset(entry) + Long.BYTES * 2);
+	}
+
+	// Zero-copy read-only view of the stored image
+	public ByteBuffer image(int entry) {
+		long offset = offset(entry);
+		return chunk(offset).slice(within(offset), length(entry)).asReadOnlyBuffer();
+	}
+
+	public ByteBuffer find(CharSequence payload) {
+		return find(PayloadHash.of(payload));
+	}
+
+	public ByteBuffer find(long hash) {
+		int entry = indexOf(hash);
+		return entry < 0 ? null : image(entry);
+	}
+
+	// Binary search straight over the mapped footer, which is sorted by hash
+	public int indexOf(long hash) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = Long.compare(hash(middle), hash);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private long entryOffset(int entry) {
+		if (entry < 0 || entry >= count) {
+			throw new IndexOutOfBoundsException("No entry " + entry);
+		}
+		return entriesOffset + (long) entry * QRPackWriter.INDEX_ENTRY_SIZE;
+	}
+
+	private long getLong(long position) {
+		return chunk(position).getLong(within(position));
+	}
+
+	private int getInt(long position) {
+		return chunk(position).getInt(within(position));
+	}
+
+	private ByteBuffer chunk(long position) {
+		return chunks[(int) (position / chunkSize)];
+	}
+
+	private int within(long position) {
+		return (int) (position % chunkSize);
+	}
+}
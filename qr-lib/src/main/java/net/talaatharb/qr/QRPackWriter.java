@@ -0,0 +1,239 @@
+package net.talaatharb.qr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class QRPackWriter implements Closeable {
+
+	// Layout: header pointing at the current index, image bytes appended back to
+	// back, then the index (count, magic, entries sorted by payload hash). The
+	// header pointer is only switched once a new index is on disk, so a pack
+	// interrupted while appending still opens with its previous entries
+	static final int MAGIC = 0x5152504B; // "QRPK"
+	static final short FORMAT_VERSION = 2;
+	static final int HEADER_SIZE = 16; // magic, version, reserved, index offset
+	static final int INDEX_POINTER_OFFSET = 8;
+	static final int INDEX_HEADER_SIZE = Integer.BYTES * 2; // count, magic
+	static final int INDEX_ENTRY_SIZE = Long.BYTES * 2 + Integer.BYTES; // hash, offset, length
+
+	private static final int INITIAL_ENTRIES = 1024;
+	// Index entries are read and written through a buffer of this many, so the
+	// index size is only bounded by the file, not by a single allocation
+	static final int INDEX_BATCH_ENTRIES = 4096;
+
+	private final FileChannel channel;
+	private final ImageBuffer imageBuffer = new ImageBuffer();
+	private long position;
+	private long[] hashes = new long[INITIAL_ENTRIES];
+	private long[] offsets = new long[INITIAL_ENTRIES];
+	private int[] lengths = new int[INITIAL_ENTRIES];
+	private int count;
+
+	private QRPackWriter(FileChannel channel, long position) {
+		this.channel = channel;
+		this.position = position;
+	}
+
+	public static QRPackWriter create(Path file) throws IOException {
+		var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+		header.putInt(0, MAGIC).putShort(Integer.BYTES, FORMAT_VERSION); // no index until closed
+		var writer = new QRPackWriter(channel, 0);
+		writer.write(header);
+		return writer;
+	}
+
+	// Reopens an existing pack, new images go after its current index which
+	// stays valid until close() points the header at the new one
+	public static QRPackWriter append(Path file) throws IOException {
+		var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			var header = readFully(channel, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC || header.getShort(Integer.BYTES) != FORMAT_VERSION) {
+				throw new IOException("Not a QR pack: " + file);
+			}
+			long indexOffset = header.getLong(INDEX_POINTER_OFFSET);
+			if (indexOffset < HEADER_SIZE) {
+				throw new IOException("QR pack was never closed: " + file);
+			}
+			var indexHeader = readFully(channel, indexOffset, INDEX_HEADER_SIZE);
+			int entries = indexHeader.getInt();
+			if (indexHeader.getInt() != MAGIC) {
+				throw new IOException("Corrupt QR pack index: " + file);
+			}
+
+			if (entries < 0) {
+				throw new IOException("Corrupt QR pack index: " + file);
+			}
+
+			var writer = new QRPackWriter(channel, channel.size());
+			long entryOffset = indexOffset + INDEX_HEADER_SIZE;
+			for (int first = 0; first < entries; first += INDEX_BATCH_ENTRIES) {
+				int batch = Math.min(INDEX_BATCH_ENTRIES, entries - first);
+				var index = readFully(channel, entryOffset + (long) first * INDEX_ENTRY_SIZE, batch * INDEX_ENTRY_SIZE);
+				for (int i = 0; i < batch; i++) {
+					writer.addEntry(index.getLong(), index.getLong(), index.getInt());
+				}
+			}
+			return writer;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public void add(String payload) throws IOException {
+		imageBuffer.reset();
+		QRRenderer.writePNG(imageBuffer, QRRenderer.DEFAULT_SCALE, QRGenerator.encode(payload).getMatrix());
+		add(PayloadHash.of(payload), imageBuffer.view());
+	}
+
+	public void add(long hash, ByteBuffer image) throws IOException {
+		long offset = position;
+		int length = image.remaining();
+		if (length > QRPackReader.CHUNK_OVERLAP) {
+			throw new IllegalArgumentException("Image of " + length + " bytes exceeds the pack limit");
+		}
+		write(image);
+		addEntry(hash, offset, length);
+	}
+
+	// Entries written so far; duplicate payloads only drop out on close
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			sort(0, count - 1);
+			int unique = removeDuplicates();
+			count = unique;
+
+			long indexOffset = position;
+			var index = ByteBuffer.allocate(INDEX_BATCH_ENTRIES * INDEX_ENTRY_SIZE).order(ByteOrder.BIG_ENDIAN);
+			write(index.putInt(unique).putInt(MAGIC).flip());
+			for (int first = 0; first < unique; first += INDEX_BATCH_ENTRIES) {
+				index.clear();
+				for (int i = first; i < Math.min(unique, first + INDEX_BATCH_ENTRIES); i++) {
+					index.putLong(hashes[i]).putLong(offsets[i]).putInt(lengths[i]);
+				}
+				write(index.flip());
+			}
+			channel.force(false); // the index must be durable before the header points at it
+
+			var pointer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.BIG_ENDIAN).putLong(0, indexOffset);
+			while (pointer.hasRemaining()) {
+				channel.write(pointer, INDEX_POINTER_OFFSET + pointer.position());
+			}
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void write(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			position += channel.write(bytes, position);
+		}
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+		var bytes = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+		while (bytes.hasRemaining()) {
+			if (channel.read(bytes, offset + bytes.position()) < 0) {
+				throw new IOException("Truncated QR pack");
+			}
+		}
+		return bytes.flip();
+	}
+
+	private void addEntry(long hash, long offset, int length) {
+		if (count == hashes.length) {
+			hashes = Arrays.copyOf(hashes, count * 2);
+			offsets = Arrays.copyOf(offsets, count * 2);
+			lengths = Arrays.copyOf(lengths, count * 2);
+		}
+		hashes[count] = hash;
+		offsets[count] = offset;
+		lengths[count] = length;
+		count++;
+	}
+
+	// Keeps the first image written for a payload, equal hashes are ordered by offset
+	private int removeDuplicates() {
+		int unique = 0;
+		for (int i = 0; i < count; i++) {
+			if (unique > 0 && hashes[unique - 1] == hashes[i]) {
+				continue;
+			}
+			hashes[unique] = hashes[i];
+			offsets[unique] = offsets[i];
+			lengths[unique] = lengths[i];
+			unique++;
+		}
+		return unique;
+	}
+
+	// Quicksort over the parallel entry arrays, avoids boxing millions of entries
+	private void sort(int low, int high) {
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			long pivotHash = hashes[middle];
+			long pivotOffset = offsets[middle];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (compare(i, pivotHash, pivotOffset) < 0) {
+					i++;
+				}
+				while (compare(j, pivotHash, pivotOffset) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i++, j--);
+				}
+			}
+			// Recurse into the smaller half to bound the stack depth
+			if (j - low < high - i) {
+				sort(low, j);
+				low = i;
+			} else {
+				sort(i, high);
+				high = j;
+			}
+		}
+	}
+
+	private int compare(int entry, long hash, long offset) {
+		int byHash = Long.compare(hashes[entry], hash);
+		return byHash != 0 ? byHash : Long.compare(offsets[entry], offset);
+	}
+
+	private void swap(int a, int b) {
+		long hash = hashes[a];
+		hashes[a] = hashes[b];
+		hashes[b] = hash;
+		long offset = offsets[a];
+		offsets[a] = offsets[b];
+		offsets[b] = offset;
+		int length = lengths[a];
+		lengths[a] = lengths[b];
+		lengths[b] = length;
+	}
+
+	private static final class ImageBuffer extends ByteArrayOutputStream {
+
+		ByteBuffer view() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+}
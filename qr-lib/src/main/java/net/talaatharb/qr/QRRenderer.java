@@ -1,12 +1,16 @@
 package net.talaatharb.qr;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,54 +19,104 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class QRRenderer {
 
-	private static final int MATRIX_SIZE = 21;
-	private static final int DEFAULT_SCALE = 16;
-	private final int[][] qr;
+	static final int DEFAULT_SCALE = 16;
+	static final int DEFAULT_QUIET_ZONE = 1;
+	private static final byte WHITE_BITS = (byte) 0xFF;
+	private final QRCode qr;
 
 	public void render(String path) {
 		log.info("Rendering QR code to image: {}", path);
-		StringBuilder builder = new StringBuilder(System.lineSeparator());
-		builder.append(System.lineSeparator());
-		for (int row = 0; row < MATRIX_SIZE; row++) {
-			for (int col = 0; col < MATRIX_SIZE; col++) {
-				builder.append(qr[row][col] == 1 ? "█" : " "); // Print black and white squares
-			}
-			builder.append(System.lineSeparator());
-		}
 
 		try {
-			saveQRCodeAsPNG(path, DEFAULT_SCALE, qr);
+			Files.write(Path.of(path), qr.toPNG());
 		} catch (IOException e) {
 			log.error("Unable to save at location {}", path);
 		}
-		log.info(builder.toString());
+		if (log.isInfoEnabled()) {
+			log.info("{}{}", System.lineSeparator(), qr.toText());
+		}
 	}
 
-	static void saveQRCodeAsPNG(String filePath, int scale, int[][] qrMatrix) throws IOException {
-		int paddedSize = MATRIX_SIZE + 2;
-		int imageSize = paddedSize * scale;
-		BufferedImage image = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
-		Graphics2D g2d = image.createGraphics();
-
-		g2d.setColor(Color.WHITE);
-		g2d.fillRect(0, 0, imageSize, imageSize);
+	public BufferedImage toImage(int scale, int quietZone) {
+		return toImage(qr.getMatrix(), scale, quietZone);
+	}
 
-		for (int row = 0; row < MATRIX_SIZE; row++) {
-			for (int col = 0; col < MATRIX_SIZE; col++) {
-				if (qrMatrix[row][col] == 1) {
-					g2d.setColor(Color.BLACK); // Black module
-				} else {
-					g2d.setColor(Color.WHITE); // White module
+	// One path for all dark modules, horizontal runs merged into a single rectangle
+	static String toSVG(int[][] qrMatrix, int quietZone) {
+		int matrixSize = qrMatrix.length;
+		int imageSize = matrixSize + 2 * quietZone;
+		StringBuilder builder = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+				.append(imageSize).append(' ').append(imageSize)
+				.append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+		for (int row = 0; row < matrixSize; row++) {
+			int col = 0;
+			while (col < matrixSize) {
+				if (qrMatrix[row][col] == 0) {
+					col++;
+					continue;
 				}
-				// Draw a filled rectangle for each module
-				g2d.fillRect((col + 1) * scale, (row + 1) * scale, scale, scale);
+				int start = col;
+				while (col < matrixSize && qrMatrix[row][col] == 1) {
+					col++;
+				}
+				builder.append('M').append(start + quietZone).append(' ').append(row + quietZone)
+						.append('h').append(col - start).append("v1h-").append(col - start).append('z');
 			}
 		}
+		return builder.append("\"/></svg>").toString();
+	}
+
+	// Buffered in memory: ImageIO would otherwise cache through a temporary
+	// file, which dominates the first call and short-lived runs
+	static void writePNG(OutputStream out, int scale, int[][] qrMatrix) throws IOException {
+		try (var imageOut = new MemoryCacheImageOutputStream(out)) {
+			ImageIO.write(toImage(qrMatrix, scale, DEFAULT_QUIET_ZONE), "png", imageOut);
+		}
+	}
 
-		g2d.dispose(); // Clean up resources
+	// 1-bit image written straight into its packed raster: only dark modules are
+	// drawn into the first scanline of each module row, which is then copied for
+	// the remaining scale - 1 scanlines
+	public static BufferedImage toImage(int[][] qrMatrix, int scale, int quietZone) {
+		if (scale < 1 || quietZone < 0) {
+			throw new IllegalArgumentException("Scale must be positive and quiet zone not negative");
+		}
+		int matrixSize = qrMatrix.length;
+		int imageSize = (matrixSize + 2 * quietZone) * scale;
+		BufferedImage image = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_BYTE_BINARY);
+		var raster = image.getRaster();
+		int stride = ((MultiPixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+		byte[] pixels = ((DataBufferByte) raster.getDataBuffer()).getData();
 
-		// Save the image as a PNG file
-		File file = new File(filePath);
-		ImageIO.write(image, "png", file);
+		Arrays.fill(pixels, WHITE_BITS); // palette index 1 is white
+		for (int row = 0; row < matrixSize; row++) {
+			int lineStart = (row + quietZone) * scale * stride;
+			int[] modules = qrMatrix[row];
+			for (int col = 0; col < matrixSize; col++) {
+				if (modules[col] == 1) {
+					int x = (col + quietZone) * scale;
+					clearBits(pixels, lineStart, x, x + scale);
+				}
+			}
+			for (int line = 1; line < scale; line++) {
+				System.arraycopy(pixels, lineStart, pixels, lineStart + line * stride, stride);
+			}
+		}
+		return image;
+	}
+
+	// Clears pixels [from, to) of a scanline packed most significant bit first
+	private static void clearBits(byte[] pixels, int lineStart, int from, int to) {
+		int firstByte = lineStart + from / 8;
+		int lastByte = lineStart + (to - 1) / 8;
+		int headMask = 0xFF >>> (from % 8);
+		int tailMask = 0xFF << (7 - (to - 1) % 8);
+		if (firstByte == lastByte) {
+			pixels[firstByte] &= (byte) ~(headMask & tailMask);
+			return;
+		}
+		pixels[firstByte] &= (byte) ~headMask;
+		Arrays.fill(pixels, firstByte + 1, lastByte, (byte) 0);
+		pixels[lastByte] &= (byte) ~tailMask;
 	}
 }
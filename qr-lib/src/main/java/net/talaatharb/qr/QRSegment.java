@@ -0,0 +1,10 @@
+package net.talaatharb.qr;
+
+import lombok.Value;
+
+@Value
+public class QRSegment {
+
+	QRMode mode;
+	int characterCount;
+}
@@ -0,0 +1,227 @@
+package net.talaatharb.qr;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+// Splits text into numeric, alphanumeric and byte segments with the fewest bits
+// for a version (character count widths change at versions 10 and 27). Each
+// character's mode is found by dynamic programming over the mode the encoding
+// is in after it, with costs kept in sixths of a bit so numeric (10 bits per 3
+// digits) and alphanumeric (11 bits per 2 characters) stay exact.
+//
+// In GS1 data the group separator is sent as FNC1: '%' in alphanumeric mode, a
+// literal '%' then being doubled, and 0x1D in byte mode
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class QRSegmentation {
+
+	static final char GROUP_SEPARATOR = '\u001D';
+
+	private static final QRMode[] MODES = { QRMode.BYTE, QRMode.ALPHANUMERIC, QRMode.NUMERIC };
+	private static final int BYTE = 0;
+	private static final int ALPHANUMERIC = 1;
+	private static final int NUMERIC = 2;
+	private static final int SIXTHS = 6;
+	private static final int NUMERIC_COST = 20; // 10 bits per 3 digits
+	private static final int ALPHANUMERIC_COST = 33; // 11 bits per 2 characters
+	private static final int BYTE_COST = 48;
+	private static final int ALPHANUMERIC_FNC1 = QRCapacity.alphanumericValue('%');
+	private static final int[] NUMERIC_REMAINDER_BITS = { 0, 4, 7 };
+
+	static boolean countBitsChange(int version) {
+		return version == 10 || version == 27;
+	}
+
+	static QRMode[] modes(CharSequence text, int version, boolean gs1) {
+		int length = text.length();
+		int[] headCosts = new int[MODES.length];
+		for (int mode = 0; mode < MODES.length; mode++) {
+			headCosts[mode] = (QRMode.INDICATOR_BITS + MODES[mode].characterCountBits(version)) * SIXTHS;
+		}
+
+		// from[i][mode]: mode character i was encoded in when the encoding is in
+		// mode after it, -1 when that state cannot be reached
+		byte[][] from = new byte[length][MODES.length];
+		int[] costs = headCosts.clone();
+		for (int i = 0; i < length; i++) {
+			int[] next = new int[MODES.length];
+			Arrays.fill(from[i], (byte) -1);
+
+			next[BYTE] = costs[BYTE] + byteLength(text, i) * BYTE_COST;
+			from[i][BYTE] = BYTE;
+			int alphanumeric = alphanumericLength(text.charAt(i), gs1);
+			if (alphanumeric > 0) {
+				next[ALPHANUMERIC] = costs[ALPHANUMERIC] + alphanumeric * ALPHANUMERIC_COST;
+				from[i][ALPHANUMERIC] = ALPHANUMERIC;
+			}
+			if (isDigit(text.charAt(i))) {
+				next[NUMERIC] = costs[NUMERIC] + NUMERIC_COST;
+				from[i][NUMERIC] = NUMERIC;
+			}
+
+			// Or close the segment after this character and open another one
+			for (int to = 0; to < MODES.length; to++) {
+				for (int mode = 0; mode < MODES.length; mode++) {
+					if (from[i][mode] < 0) {
+						continue;
+					}
+					int cost = (next[mode] + SIXTHS - 1) / SIXTHS * SIXTHS + headCosts[to];
+					if (from[i][to] < 0 || cost < next[to]) {
+						next[to] = cost;
+						from[i][to] = (byte) mode;
+					}
+				}
+			}
+			costs = next;
+		}
+
+		int mode = 0;
+		for (int candidate = 1; candidate < MODES.length; candidate++) {
+			if (costs[candidate] < costs[mode]) {
+				mode = candidate;
+			}
+		}
+		QRMode[] modes = new QRMode[length];
+		for (int i = length - 1; i >= 0; i--) {
+			mode = from[i][mode];
+			modes[i] = MODES[mode];
+		}
+		return modes;
+	}
+
+	// Segment bits of the text in the given modes, mode indicators included
+	static int bitLength(CharSequence text, QRMode[] modes, int version, boolean gs1) {
+		int bits = 0;
+		for (int start = 0, end; start < modes.length; start = end) {
+			end = segmentEnd(modes, start);
+			int count = characterCount(text, modes[start], start, end, gs1);
+			bits += QRMode.INDICATOR_BITS + modes[start].characterCountBits(version) + switch (modes[start]) {
+			case NUMERIC -> 10 * (count / 3) + NUMERIC_REMAINDER_BITS[count % 3];
+			case ALPHANUMERIC -> 11 * (count / 2) + 6 * (count % 2);
+			default -> 8 * count;
+			};
+		}
+		return bits;
+	}
+
+	static List<QRSegment> segments(CharSequence text, QRMode[] modes, boolean gs1) {
+		List<QRSegment> segments = new ArrayList<>();
+		for (int start = 0, end; start < modes.length; start = end) {
+			end = segmentEnd(modes, start);
+			segments.add(new QRSegment(modes[start], characterCount(text, modes[start], start, end, gs1)));
+		}
+		return segments;
+	}
+
+	static void write(QRBitBuffer bits, CharSequence text, QRMode[] modes, int version, boolean gs1) {
+		for (int start = 0, end; start < modes.length; start = end) {
+			end = segmentEnd(modes, start);
+			QRMode mode = modes[start];
+			bits.append(mode.getIndicator(), QRMode.INDICATOR_BITS);
+			bits.append(characterCount(text, mode, start, end, gs1), mode.characterCountBits(version));
+			switch (mode) {
+			case NUMERIC -> writeNumeric(bits, text, start, end);
+			case ALPHANUMERIC -> writeAlphanumeric(bits, text, start, end, gs1);
+			default -> {
+				for (byte b : bytes(text, start, end)) {
+					bits.append(b & 0xFF, 8);
+				}
+			}
+			}
+		}
+	}
+
+	private static void writeNumeric(QRBitBuffer bits, CharSequence text, int start, int end) {
+		for (int i = start; i < end; i += 3) {
+			int digits = Math.min(3, end - i);
+			int value = 0;
+			for (int j = i; j < i + digits; j++) {
+				value = value * 10 + text.charAt(j) - '0';
+			}
+			bits.append(value, digits * 3 + 1);
+		}
+	}
+
+	private static void writeAlphanumeric(QRBitBuffer bits, CharSequence text, int start, int end, boolean gs1) {
+		int pending = -1;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			int value = gs1 && c == GROUP_SEPARATOR ? ALPHANUMERIC_FNC1 : QRCapacity.alphanumericValue(c);
+			for (int repeat = gs1 && c == '%' ? 2 : 1; repeat > 0; repeat--) {
+				if (pending < 0) {
+					pending = value;
+				} else {
+					bits.append(pending * 45 + value, 11);
+					pending = -1;
+				}
+			}
+		}
+		if (pending >= 0) {
+			bits.append(pending, 6);
+		}
+	}
+
+	private static int characterCount(CharSequence text, QRMode mode, int start, int end, boolean gs1) {
+		return switch (mode) {
+		case ALPHANUMERIC -> {
+			int count = 0;
+			for (int i = start; i < end; i++) {
+				count += alphanumericLength(text.charAt(i), gs1);
+			}
+			yield count;
+		}
+		case BYTE -> bytes(text, start, end).length;
+		default -> end - start;
+		};
+	}
+
+	private static byte[] bytes(CharSequence text, int start, int end) {
+		return text.subSequence(start, end).toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int segmentEnd(QRMode[] modes, int start) {
+		int end = start + 1;
+		while (end < modes.length && modes[end] == modes[start]) {
+			end++;
+		}
+		return end;
+	}
+
+	// Alphanumeric characters taken by c, 0 when it has no alphanumeric form
+	private static int alphanumericLength(char c, boolean gs1) {
+		if (gs1 && c == GROUP_SEPARATOR) {
+			return 1;
+		}
+		if (QRCapacity.alphanumericValue(c) < 0) {
+			return 0;
+		}
+		return gs1 && c == '%' ? 2 : 1;
+	}
+
+	// UTF-8 bytes charged to the character, a surrogate pair being charged in
+	// full to its high half
+	private static int byteLength(CharSequence text, int i) {
+		char c = text.charAt(i);
+		if (c < 0x80) {
+			return 1;
+		} else if (c < 0x800) {
+			return 2;
+		} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+				&& Character.isLowSurrogate(text.charAt(i + 1))) {
+			return 4;
+		} else if (Character.isLowSurrogate(c) && i > 0 && Character.isHighSurrogate(text.charAt(i - 1))) {
+			return 0;
+		} else if (Character.isSurrogate(c)) {
+			return 1; // replaced by '?' when encoded
+		}
+		return 3;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+}
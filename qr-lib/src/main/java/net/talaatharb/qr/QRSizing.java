@@ -0,0 +1,23 @@
+package net.talaatharb.qr;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// Result of QRCapacity.measure. Mutable so one instance can be refilled on
+// every call; version is 0 when the payload does not fit any symbol
+@Getter
+@ToString
+public class QRSizing {
+
+	ErrorCorrectionLevel errorCorrectionLevel;
+	QRMode mode;
+	int characterCount;
+	int version;
+	int bitLength;
+	int remainingBits;
+	int remainingCharacters;
+
+	public boolean fits() {
+		return version > 0;
+	}
+}
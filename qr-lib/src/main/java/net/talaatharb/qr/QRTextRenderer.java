@@ -0,0 +1,108 @@
+package net.talaatharb.qr;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// Two module rows per character cell through half-block glyphs, so modules come
+// out square on terminals whose cells are about twice as tall as wide. A whole
+// code is laid out in one reusable char buffer and written with a single call;
+// an instance is therefore not thread-safe, keep one per printing thread
+public class QRTextRenderer {
+
+	static final int DEFAULT_QUIET_ZONE = 2;
+	// Indexed by (top dark ? 2 : 0) | (bottom dark ? 1 : 0)
+	private static final char[] GLYPHS = { ' ', '▄', '▀', '█' };
+	// Black on bright white, so the code scans the same on dark terminal themes
+	private static final char[] ANSI_COLORS = "\u001B[30;107m".toCharArray();
+	private static final char[] ANSI_RESET = "\u001B[0m".toCharArray();
+	private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+	private final int quietZone;
+	private final boolean ansi;
+	private char[] buffer = new char[0];
+	private PrintStream stream;
+	private Writer streamWriter;
+
+	public QRTextRenderer() {
+		this(false);
+	}
+
+	public QRTextRenderer(boolean ansi) {
+		this(DEFAULT_QUIET_ZONE, ansi);
+	}
+
+	public QRTextRenderer(int quietZone, boolean ansi) {
+		if (quietZone < 0) {
+			throw new IllegalArgumentException("Quiet zone must not be negative");
+		}
+		this.quietZone = quietZone;
+		this.ansi = ansi;
+	}
+
+	public String render(QRCode qr) {
+		int length = layout(qr);
+		return new String(buffer, 0, length);
+	}
+
+	public void write(QRCode qr, Writer out) throws IOException {
+		int length = layout(qr); // may replace the buffer
+		out.write(buffer, 0, length);
+	}
+
+	// The stream's writer is kept while the same stream is used, so printing
+	// many codes allocates nothing per code
+	public void write(QRCode qr, PrintStream out) {
+		if (out != stream) {
+			stream = out;
+			streamWriter = new OutputStreamWriter(out, out.charset());
+		}
+		try {
+			write(qr, streamWriter);
+			streamWriter.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Fills the buffer and returns the number of chars used
+	private int layout(QRCode qr) {
+		int size = qr.getSize();
+		int width = size + 2 * quietZone;
+		int lines = (width + 1) / 2;
+		int lineLength = width + LINE_SEPARATOR.length + (ansi ? ANSI_COLORS.length + ANSI_RESET.length : 0);
+		if (buffer.length < lines * lineLength) {
+			buffer = new char[lines * lineLength];
+		}
+
+		int index = 0;
+		for (int line = 0; line < lines; line++) {
+			if (ansi) {
+				index = append(ANSI_COLORS, index);
+			}
+			int top = 2 * line - quietZone;
+			for (int col = -quietZone; col < size + quietZone; col++) {
+				int glyph = (isDark(qr, top, col) ? 2 : 0) | (isDark(qr, top + 1, col) ? 1 : 0);
+				buffer[index++] = GLYPHS[glyph];
+			}
+			if (ansi) {
+				index = append(ANSI_RESET, index); // before the line break, colours must not bleed
+			}
+			index = append(LINE_SEPARATOR, index);
+		}
+		return index;
+	}
+
+	private int append(char[] chars, int index) {
+		System.arraycopy(chars, 0, buffer, index, chars.length);
+		return index + chars.length;
+	}
+
+	// Modules outside the symbol belong to the quiet zone
+	private static boolean isDark(QRCode qr, int row, int col) {
+		int size = qr.getSize();
+		return row >= 0 && row < size && col >= 0 && col < size && qr.isDark(row, col);
+	}
+}
@@ -0,0 +1,205 @@
+package net.talaatharb.qr;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+// Geometry of one symbol version: function patterns drawn once into a
+// template, the data module placement order and the mask flip tables. Built on
+// first use and shared afterwards
+final class QRVersionLayout {
+
+	private static final int VERSION_INFO_MIN_VERSION = 7;
+	private static final int VERSION_INFO_GENERATOR = 0x1F25; // BCH(18, 6)
+	private static final QRVersionLayout[] LAYOUTS = new QRVersionLayout[QRCapacity.MAX_VERSION + 1];
+
+	@Getter
+	private final int version;
+	@Getter
+	private final int size;
+	private final boolean[] function;
+	private final int[][] template;
+	// Data modules (row * size + col) in placement order
+	@Getter
+	private final int[] dataPositions;
+	@Getter
+	private final int[][] formatBitPositions;
+	private final int[][][] flipTables;
+
+	private QRVersionLayout(int version) {
+		this.version = version;
+		this.size = QRCapacity.matrixSize(version);
+		this.function = new boolean[size * size];
+		this.template = new int[size][size];
+		drawFunctionPatterns();
+		this.dataPositions = placementOrder();
+		this.formatBitPositions = QRGenerator.formatBitPositions(size);
+		this.flipTables = flipTables();
+	}
+
+	static QRVersionLayout of(int version) {
+		QRVersionLayout layout = LAYOUTS[version];
+		if (layout == null) {
+			// Idempotent, racing threads build equal layouts and keep either one
+			layout = new QRVersionLayout(version);
+			LAYOUTS[version] = layout;
+		}
+		return layout;
+	}
+
+	static QRVersionLayout forSize(int size) {
+		if (size < QRCapacity.matrixSize(QRCapacity.MIN_VERSION) || (size - 17) % 4 != 0
+				|| size > QRCapacity.matrixSize(QRCapacity.MAX_VERSION)) {
+			throw new IllegalArgumentException("Invalid symbol size " + size);
+		}
+		return of((size - 17) / 4);
+	}
+
+	boolean isFunction(int row, int col) {
+		return function[row * size + col];
+	}
+
+	// Fresh matrix holding the finder, separator, timing and alignment patterns,
+	// the dark module and, from version 7, the version information
+	int[][] newMatrix() {
+		int[][] matrix = new int[size][];
+		for (int row = 0; row < size; row++) {
+			matrix[row] = template[row].clone();
+		}
+		return matrix;
+	}
+
+	int[][] flipTable(int maskPattern) {
+		return flipTables[maskPattern];
+	}
+
+	// Centre coordinates shared by rows and columns of alignment patterns
+	static int[] alignmentCenters(int version) {
+		if (version == 1) {
+			return new int[0];
+		}
+		int count = version / 7 + 2;
+		int step = version == 32 ? 26 : (version * 4 + count * 2 + 1) / (count * 2 - 2) * 2;
+		int[] centers = new int[count];
+		centers[0] = 6;
+		for (int i = count - 1, position = QRCapacity.matrixSize(version) - 7; i >= 1; i--, position -= step) {
+			centers[i] = position;
+		}
+		return centers;
+	}
+
+	// 6 version bits followed by their 12 bit BCH remainder
+	static int versionBits(int version) {
+		int remainder = version;
+		for (int i = 0; i < 12; i++) {
+			remainder = (remainder << 1) ^ ((remainder >>> 11) * VERSION_INFO_GENERATOR);
+		}
+		return version << 12 | remainder;
+	}
+
+	private void drawFunctionPatterns() {
+		// Finders with their separators, and the format information around them
+		reserve(0, 0, 9, 9);
+		reserve(0, size - 8, 9, 8);
+		reserve(size - 8, 0, 8, 9);
+		drawFinder(0, 0);
+		drawFinder(0, size - 7);
+		drawFinder(size - 7, 0);
+
+		// Timing patterns run between the separators, never across the finders
+		for (int i = 8; i < size - 8; i++) {
+			set(6, i, i % 2 == 0 ? 1 : 0);
+			set(i, 6, i % 2 == 0 ? 1 : 0);
+		}
+
+		int[] centers = alignmentCenters(version);
+		for (int i = 0; i < centers.length; i++) {
+			for (int j = 0; j < centers.length; j++) {
+				boolean finderCorner = (i == 0 && j == 0) || (i == 0 && j == centers.length - 1)
+						|| (i == centers.length - 1 && j == 0);
+				if (!finderCorner) {
+					drawAlignment(centers[i], centers[j]);
+				}
+			}
+		}
+
+		if (version >= VERSION_INFO_MIN_VERSION) {
+			int bits = versionBits(version);
+			for (int i = 0; i < 18; i++) {
+				int bit = (bits >> i) & 1;
+				int a = size - 11 + i % 3;
+				int b = i / 3;
+				set(b, a, bit);
+				set(a, b, bit);
+			}
+		}
+
+		set(size - 8, 8, 1); // dark module
+	}
+
+	private void drawFinder(int top, int left) {
+		for (int r = 0; r < 7; r++) {
+			for (int c = 0; c < 7; c++) {
+				boolean ring = r == 0 || r == 6 || c == 0 || c == 6;
+				boolean core = r >= 2 && r <= 4 && c >= 2 && c <= 4;
+				set(top + r, left + c, ring || core ? 1 : 0);
+			}
+		}
+	}
+
+	private void drawAlignment(int centerRow, int centerCol) {
+		for (int r = -2; r <= 2; r++) {
+			for (int c = -2; c <= 2; c++) {
+				set(centerRow + r, centerCol + c, Math.max(Math.abs(r), Math.abs(c)) == 1 ? 0 : 1);
+			}
+		}
+	}
+
+	private void reserve(int top, int left, int height, int width) {
+		for (int r = top; r < top + height; r++) {
+			Arrays.fill(function, r * size + left, r * size + left + width, true);
+		}
+	}
+
+	private void set(int row, int col, int value) {
+		template[row][col] = value;
+		function[row * size + col] = true;
+	}
+
+	// Two-module wide columns from the right, alternating upwards and
+	// downwards, skipping the vertical timing column
+	private int[] placementOrder() {
+		int[] positions = new int[size * size];
+		int count = 0;
+		boolean upwards = true;
+		for (int right = size - 1; right > 0; right -= 2) {
+			if (right == 6) {
+				right--;
+			}
+			for (int i = 0; i < size; i++) {
+				int row = upwards ? size - 1 - i : i;
+				for (int col = right; col > right - 2; col--) {
+					if (!isFunction(row, col)) {
+						positions[count++] = row * size + col;
+					}
+				}
+			}
+			upwards = !upwards;
+		}
+		return Arrays.copyOf(positions, count);
+	}
+
+	private int[][][] flipTables() {
+		int[][][] tables = new int[QRMasking.MASK_PATTERNS][size][size];
+		for (int mask = 0; mask < QRMasking.MASK_PATTERNS; mask++) {
+			for (int position : dataPositions) {
+				int row = position / size;
+				int col = position % size;
+				if (QRGenerator.shouldFlipBit(mask, row, col)) {
+					tables[mask][row][col] = 1;
+				}
+			}
+		}
+		return tables;
+	}
+}
@@ -6,24 +6,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class ReedSolomon {
 
-	private static final int GF_SIZE = 256; // Size of GF(2^8)
-	private static final int[] EXP_TABLE = new int[GF_SIZE * 2];
-	private static final int[] LOG_TABLE = new int[GF_SIZE];
-
-	static {
-		// Generate the exp and log tables for GF(2^8)
-		int x = 1;
-		for (int i = 0; i < GF_SIZE; i++) {
-			EXP_TABLE[i] = x;
-			LOG_TABLE[x] = i;
-			x <<= 1;
-			if (x >= GF_SIZE)
-				x ^= 0x11D; // x^8 + x^4 + x^3 + x + 1
-		}
-		for (int i = GF_SIZE; i < EXP_TABLE.length; i++) {
-			EXP_TABLE[i] = EXP_TABLE[i - GF_SIZE];
-		}
-	}
+	static final int GF_SIZE = 256; // Size of GF(2^8)
+	static final int[] EXP_TABLE = QRTables.GF_EXP;
+	static final int[] LOG_TABLE = QRTables.GF_LOG;
 
 	static final int gfAdd(int a, int b) {
 		return a ^ b; // Addition in GF(2^8)
@@ -35,11 +20,24 @@ public class ReedSolomon {
 		return EXP_TABLE[(LOG_TABLE[a] + LOG_TABLE[b]) % (GF_SIZE - 1)];
 	}
 
+	static final int gfDivide(int a, int b) {
+		if (b == 0)
+			throw new ArithmeticException("Division by zero in GF(256)");
+		if (a == 0)
+			return 0;
+		return EXP_TABLE[(LOG_TABLE[a] % (GF_SIZE - 1) - LOG_TABLE[b] % (GF_SIZE - 1) + GF_SIZE - 1) % (GF_SIZE - 1)];
+	}
+
+	// alpha^exponent for any integer exponent
+	static final int gfPow(int exponent) {
+		return EXP_TABLE[Math.floorMod(exponent, GF_SIZE - 1)];
+	}
+
 	public static byte[] generateErrorCorrectionCodewords(byte[] data, int numCodewords) {
 		int dataLength = data.length;
 		int totalLength = dataLength + numCodewords;
 
-		int[] generator = calculateGenerator(numCodewords);
+		int[] generator = generator(numCodewords);
 
 		int[] message = createIntMessage(data, totalLength);
 
@@ -60,6 +58,32 @@ public class ReedSolomon {
 		return ecCodewords;
 	}
 
+	// Computes the EC codewords of many equally sized messages at once, one
+	// message per vector lane when the Vector API is available
+	public static byte[][] generateErrorCorrectionCodewords(byte[][] messages, int numCodewords) {
+		if (VectorSupport.isAvailable() && hasUniformLength(messages)) {
+			return VectorReedSolomon.generateErrorCorrectionCodewords(messages, numCodewords);
+		}
+		return generateErrorCorrectionCodewordsScalar(messages, numCodewords);
+	}
+
+	static final byte[][] generateErrorCorrectionCodewordsScalar(byte[][] messages, int numCodewords) {
+		byte[][] ecCodewords = new byte[messages.length][];
+		for (int i = 0; i < messages.length; i++) {
+			ecCodewords[i] = generateErrorCorrectionCodewords(messages[i], numCodewords);
+		}
+		return ecCodewords;
+	}
+
+	static final boolean hasUniformLength(byte[][] messages) {
+		for (int i = 1; i < messages.length; i++) {
+			if (messages[i].length != messages[0].length) {
+				return false;
+			}
+		}
+		return messages.length > 1;
+	}
+
 	static final int[] createIntMessage(byte[] data, int totalLength) {
 		int dataLength = data.length;
 		int[] message = new int[totalLength];
@@ -69,6 +93,13 @@ public class ReedSolomon {
 		return message;
 	}
 
+	// Shared, precomputed polynomial for every degree a QR symbol uses; callers
+	// must not modify it
+	static final int[] generator(int numCodewords) {
+		return numCodewords < QRTables.RS_GENERATORS.length ? QRTables.RS_GENERATORS[numCodewords]
+				: calculateGenerator(numCodewords);
+	}
+
 	static final int[] calculateGenerator(int numCodewords) {
 		int[] generator = new int[numCodewords + 1];
 		generator[0] = 1; // Initial generator polynomial
@@ -80,4 +111,114 @@ public class ReedSolomon {
 		}
 		return generator;
 	}
+
+	// Corrects the block (data followed by numCodewords EC codewords) in place and
+	// returns the number of corrected codewords, or -1 when there are more errors
+	// than the code can correct
+	public static int correctErrors(int[] block, int numCodewords) {
+		int[] syndromes = new int[numCodewords];
+		boolean clean = true;
+		for (int j = 0; j < numCodewords; j++) {
+			int x = EXP_TABLE[j];
+			int syndrome = 0;
+			for (int value : block) {
+				syndrome = gfMultiply(syndrome, x) ^ value; // Horner evaluation at alpha^j
+			}
+			syndromes[j] = syndrome;
+			clean &= syndrome == 0;
+		}
+		if (clean) {
+			return 0;
+		}
+
+		int[] locator = errorLocator(syndromes);
+		int errorCount = degree(locator);
+		if (errorCount * 2 > numCodewords) {
+			return -1;
+		}
+
+		// Error evaluator omega(x) = S(x) * lambda(x) mod x^numCodewords
+		int[] evaluator = new int[numCodewords];
+		for (int i = 0; i < numCodewords; i++) {
+			for (int j = 0; j <= i && j < locator.length; j++) {
+				evaluator[i] ^= gfMultiply(locator[j], syndromes[i - j]);
+			}
+		}
+
+		// Chien search for the roots of lambda, then Forney for the magnitudes
+		int found = 0;
+		int n = block.length;
+		for (int power = 0; power < n; power++) {
+			int inverse = gfPow(-power);
+			if (evaluate(locator, inverse) != 0) {
+				continue;
+			}
+			int derivative = 0;
+			for (int i = 1; i < locator.length; i += 2) {
+				derivative ^= gfMultiply(locator[i], gfPow(-power * (i - 1)));
+			}
+			if (derivative == 0) {
+				return -1;
+			}
+			int magnitude = gfMultiply(gfPow(power), gfDivide(evaluate(evaluator, inverse), derivative));
+			block[n - 1 - power] ^= magnitude;
+			found++;
+		}
+		return found == errorCount ? found : -1;
+	}
+
+	// Berlekamp-Massey, coefficients in ascending powers of x
+	static final int[] errorLocator(int[] syndromes) {
+		int length = syndromes.length;
+		int[] locator = new int[length + 1];
+		int[] previous = new int[length + 1];
+		locator[0] = 1;
+		previous[0] = 1;
+		int errors = 0;
+		int shift = 1;
+		int previousDiscrepancy = 1;
+
+		for (int k = 0; k < length; k++) {
+			int discrepancy = syndromes[k];
+			for (int i = 1; i <= errors; i++) {
+				discrepancy ^= gfMultiply(locator[i], syndromes[k - i]);
+			}
+			if (discrepancy == 0) {
+				shift++;
+				continue;
+			}
+
+			int coefficient = gfDivide(discrepancy, previousDiscrepancy);
+			int[] current = locator.clone();
+			for (int i = 0; i + shift <= length; i++) {
+				locator[i + shift] ^= gfMultiply(coefficient, previous[i]);
+			}
+			if (2 * errors <= k) {
+				errors = k + 1 - errors;
+				previous = current;
+				previousDiscrepancy = discrepancy;
+				shift = 1;
+			} else {
+				shift++;
+			}
+		}
+		return locator;
+	}
+
+	private static int evaluate(int[] polynomial, int x) {
+		int result = 0;
+		for (int i = polynomial.length - 1; i >= 0; i--) {
+			result = gfMultiply(result, x) ^ polynomial[i];
+		}
+		return result;
+	}
+
+	private static int degree(int[] polynomial) {
+		for (int i = polynomial.length - 1; i > 0; i--) {
+			if (polynomial[i] != 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
 }
@@ -0,0 +1,75 @@
+package net.talaatharb.qr;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class VectorMasking {
+
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	static final int laneCount() {
+		return SPECIES.length();
+	}
+
+	static final void xorRows(int[][] qrMatrix, int[][] flips, int[][] result) {
+		for (int row = 0; row < qrMatrix.length; row++) {
+			int[] source = qrMatrix[row];
+			int[] flip = flips[row];
+			int[] target = result[row];
+			int bound = SPECIES.loopBound(source.length);
+			int col = 0;
+			for (; col < bound; col += SPECIES.length()) {
+				IntVector.fromArray(SPECIES, source, col).lanewise(VectorOperators.XOR, IntVector.fromArray(SPECIES, flip, col))
+						.intoArray(target, col);
+			}
+			for (; col < source.length; col++) {
+				target[col] = source[col] ^ flip[col];
+			}
+		}
+	}
+
+	static final int countDarkModules(int[][] qrMatrix) {
+		int dark = 0;
+		for (int[] row : qrMatrix) {
+			int bound = SPECIES.loopBound(row.length);
+			int col = 0;
+			for (; col < bound; col += SPECIES.length()) {
+				dark += IntVector.fromArray(SPECIES, row, col).reduceLanes(VectorOperators.ADD);
+			}
+			for (; col < row.length; col++) {
+				dark += row[col];
+			}
+		}
+		return dark;
+	}
+
+	// Counts 2x2 blocks of a single colour, each vector compares a module with
+	// its right, lower and lower-right neighbours
+	static final int countUniformBlocks(int[][] qrMatrix) {
+		int blocks = 0;
+		for (int row = 0; row < qrMatrix.length - 1; row++) {
+			int[] upper = qrMatrix[row];
+			int[] lower = qrMatrix[row + 1];
+			int width = upper.length - 1;
+			int bound = SPECIES.loopBound(width);
+			int col = 0;
+			for (; col < bound; col += SPECIES.length()) {
+				var module = IntVector.fromArray(SPECIES, upper, col);
+				var same = module.compare(VectorOperators.EQ, IntVector.fromArray(SPECIES, upper, col + 1))
+						.and(module.compare(VectorOperators.EQ, IntVector.fromArray(SPECIES, lower, col)))
+						.and(module.compare(VectorOperators.EQ, IntVector.fromArray(SPECIES, lower, col + 1)));
+				blocks += same.trueCount();
+			}
+			for (; col < width; col++) {
+				if (QRMasking.isUniformBlock(upper, lower, col)) {
+					blocks++;
+				}
+			}
+		}
+		return blocks;
+	}
+}
@@ -0,0 +1,98 @@
+package net.talaatharb.qr;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class VectorReedSolomon {
+
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	private static final int ORDER = ReedSolomon.GF_SIZE - 1; // multiplicative group order
+
+	static final int laneCount() {
+		return SPECIES.length();
+	}
+
+	// All messages must have the same length, lane k of every vector holds the
+	// k-th message of the current chunk
+	static final byte[][] generateErrorCorrectionCodewords(byte[][] messages, int numCodewords) {
+		int lanes = SPECIES.length();
+		int dataLength = messages[0].length;
+		int totalLength = dataLength + numCodewords;
+
+		int[] generatorLogs = generatorLogs(ReedSolomon.generator(numCodewords));
+		int[] transposed = new int[totalLength * lanes];
+		int[] indices = new int[lanes];
+		byte[][] ecCodewords = new byte[messages.length][];
+
+		int bound = SPECIES.loopBound(messages.length);
+		for (int first = 0; first < bound; first += lanes) {
+			transpose(messages, first, dataLength, transposed);
+			divide(transposed, dataLength, generatorLogs, indices);
+			for (int lane = 0; lane < lanes; lane++) {
+				byte[] ec = new byte[numCodewords];
+				for (int i = 0; i < numCodewords; i++) {
+					ec[i] = (byte) transposed[(dataLength + i) * lanes + lane];
+				}
+				ecCodewords[first + lane] = ec;
+			}
+		}
+
+		// Remaining messages do not fill a whole vector
+		for (int i = bound; i < messages.length; i++) {
+			ecCodewords[i] = ReedSolomon.generateErrorCorrectionCodewords(messages[i], numCodewords);
+		}
+		return ecCodewords;
+	}
+
+	private static void transpose(byte[][] messages, int first, int dataLength, int[] transposed) {
+		int lanes = SPECIES.length();
+		Arrays.fill(transposed, 0);
+		for (int lane = 0; lane < lanes; lane++) {
+			byte[] message = messages[first + lane];
+			for (int i = 0; i < dataLength; i++) {
+				transposed[i * lanes + lane] = message[i] & 0xFF;
+			}
+		}
+	}
+
+	// Polynomial long division of every lane by the generator, the product
+	// coefficient * generator[j] is EXP[(LOG[coefficient] + LOG[generator[j]]) mod 255]
+	private static void divide(int[] transposed, int dataLength, int[] generatorLogs, int[] indices) {
+		int lanes = SPECIES.length();
+		for (int i = 0; i < dataLength; i++) {
+			int offset = i * lanes;
+			var coefficient = IntVector.fromArray(SPECIES, transposed, offset);
+			VectorMask<Integer> zero = coefficient.compare(VectorOperators.EQ, 0);
+			if (zero.allTrue()) {
+				continue;
+			}
+			var logCoefficient = IntVector.fromArray(SPECIES, ReedSolomon.LOG_TABLE, 0, transposed, offset);
+
+			for (int j = 1; j < generatorLogs.length; j++) {
+				var exponent = logCoefficient.add(generatorLogs[j]);
+				exponent = exponent.sub(ORDER, exponent.compare(VectorOperators.GE, ORDER));
+				exponent.intoArray(indices, 0);
+
+				var product = IntVector.fromArray(SPECIES, ReedSolomon.EXP_TABLE, 0, indices, 0).blend(0, zero);
+				int target = (i + j) * lanes;
+				IntVector.fromArray(SPECIES, transposed, target).lanewise(VectorOperators.XOR, product)
+						.intoArray(transposed, target);
+			}
+		}
+	}
+
+	private static int[] generatorLogs(int[] generator) {
+		int[] logs = new int[generator.length];
+		for (int j = 0; j < generator.length; j++) {
+			logs[j] = ReedSolomon.LOG_TABLE[generator[j]] % ORDER;
+		}
+		return logs;
+	}
+}
@@ -0,0 +1,36 @@
+package net.talaatharb.qr;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class VectorSupport {
+
+	static final String VECTOR_MODULE = "jdk.incubator.vector";
+	static final String DISABLE_PROPERTY = "qr.vector.disable";
+
+	private static final boolean AVAILABLE = detect();
+
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	// The incubator module is only resolved when the JVM is started with
+	// --add-modules jdk.incubator.vector, otherwise we stay on the scalar path
+	private static boolean detect() {
+		if (Boolean.getBoolean(DISABLE_PROPERTY)) {
+			return false;
+		}
+		if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+			return false;
+		}
+		try {
+			return VectorMasking.laneCount() > 1;
+		} catch (LinkageError e) {
+			log.debug("Vector API unavailable, using scalar backend", e);
+			return false;
+		}
+	}
+}
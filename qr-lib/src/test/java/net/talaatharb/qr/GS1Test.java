@@ -0,0 +1,134 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class GS1Test {
+
+	private static final String LABEL = "(01)09521234543213(17)250101(10)ABC123(21)12345";
+	private static final char GS = GS1.GROUP_SEPARATOR;
+
+	@Test
+	void testParsesBracketedForm() {
+		assertEquals(List.of(new GS1Element("01", "09521234543213"), new GS1Element("17", "250101"),
+				new GS1Element("10", "ABC123"), new GS1Element("21", "12345")), GS1.parse(LABEL));
+		assertEquals(LABEL, GS1.toHumanReadable(GS1.parse(LABEL)));
+	}
+
+	@Test
+	void testSeparatorsOnlyFollowVariableLengthElements() {
+		String data = GS1.encodedData(GS1.parse(LABEL));
+
+		assertEquals("010952123454321317250101" + "10ABC123" + GS + "2112345", data);
+		assertEquals(GS1.parse(LABEL), GS1.parse(data));
+	}
+
+	@Test
+	void testParsesRawFormWithFourDigitIdentifiers() {
+		var elements = GS1.parse("3103000750" + "10LOT7" + GS + "7003" + "2501011200");
+
+		assertEquals(List.of(new GS1Element("3103", "000750"), new GS1Element("10", "LOT7"),
+				new GS1Element("7003", "2501011200")), elements);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "(01)09521234543214", "(17)251301", "(01)0952123454321", "(10)ABCDEFGHIJKLMNOPQRSTU",
+			"(10)ÄB", "(05)123", "01", "(21" })
+	void testRejectsInvalidElements(String elementString) {
+		assertThrows(IllegalArgumentException.class, () -> GS1.parse(elementString));
+	}
+
+	@Test
+	void testCheckDigit() {
+		assertEquals(3, GS1.checkDigit("09521234543213"));
+		assertEquals(8, GS1.checkDigit("106141412345678908"));
+	}
+
+	@Test
+	void testGeneratedSymbolDecodesToElements() {
+		var code = QRGenerator.generateGS1(LABEL);
+		var result = QRDecoder.decode(code.toMatrix());
+
+		assertTrue(result.isGs1());
+		assertEquals(GS1.parse(LABEL), GS1.parse(result.getText()));
+		assertEquals(code.getVersion(), result.getVersion());
+		assertEquals(new QRSegment(QRMode.FNC1_FIRST, 0), code.getSegments().get(0));
+		assertEquals(QRMode.NUMERIC, code.getSegments().get(1).getMode());
+	}
+
+	// Goes through the rendered image, so function patterns are checked by the
+	// finder search and not only by the layout the decoder shares
+	@ParameterizedTest
+	@EnumSource(ErrorCorrectionLevel.class)
+	void testRenderedSymbolsReadFromImage(ErrorCorrectionLevel level) {
+		for (int serialLength : new int[] { 1, 8, 20 }) {
+			String label = "(01)09521234543213(21)" + "7".repeat(serialLength) + "(10)" + "ABC123".repeat(3);
+			var code = QRGenerator.generateGS1(label, level);
+			var image = QRRenderer.toImage(code.toMatrix(), 4, 4);
+
+			var result = QRImageReader.read(image);
+
+			assertTrue(result.isGs1());
+			assertEquals(code.getVersion(), result.getVersion());
+			assertEquals(GS1.parse(label), GS1.parse(result.getText()));
+		}
+	}
+
+	@Test
+	void testLiteralPercentSurvivesAlphanumericMode() {
+		String label = "(10)AB%CD/EF(21)X-1%";
+		var result = QRDecoder.decode(QRGenerator.generateGS1(label).toMatrix());
+
+		assertEquals(GS1.parse(label), GS1.parse(result.getText()));
+	}
+
+	@Test
+	void testDenserThanByteEncoding() {
+		String data = GS1.encodedData(GS1.parse(LABEL));
+		var naive = QRCapacity.measure(data.toLowerCase(), ErrorCorrectionLevel.L);
+		var code = QRGenerator.generateGS1(LABEL);
+
+		int bits = QRMode.INDICATOR_BITS
+				+ QRSegmentation.bitLength(data, QRSegmentation.modes(data, code.getVersion(), true), code.getVersion(), true);
+
+		assertEquals(QRMode.BYTE, naive.getMode());
+		assertTrue(bits < naive.getBitLength() * 3 / 4, bits + " bits against " + naive.getBitLength());
+		assertTrue(code.getVersion() < naive.getVersion());
+	}
+
+	@ParameterizedTest
+	@EnumSource(ErrorCorrectionLevel.class)
+	void testLargeSymbolsWithBlocksAndVersionInformation(ErrorCorrectionLevel level) {
+		String label = "(01)09521234543213(8200)HTTPS://EXAMPLE.COM/PRODUCTS/09521234543213/BATCHES/ABC123"
+				+ "(91)" + "internal-routing-code-".repeat(4) + "(3103)000750";
+		var code = QRGenerator.generateGS1(label, level);
+		var result = QRDecoder.decode(code.toMatrix());
+
+		assertTrue(code.getVersion() >= 7);
+		assertEquals(level, result.getErrorCorrectionLevel());
+		assertEquals(GS1.parse(label), GS1.parse(result.getText()));
+	}
+
+	@Test
+	void testCorrectsErrorsAcrossBlocks() {
+		String label = "(8200)" + "HTTPS://EXAMPLE.COM/".repeat(3) + "(91)" + "abcdefghij".repeat(6);
+		int[][] modules = QRGenerator.generateGS1(label, ErrorCorrectionLevel.H).toMatrix();
+		int size = modules.length;
+		for (int col = size - 1; col > size - 9; col--) {
+			modules[size - 1][col] ^= 1;
+		}
+
+		var result = QRDecoder.decode(modules);
+
+		assertEquals(GS1.parse(label), GS1.parse(result.getText()));
+		assertTrue(result.getCorrectedErrors() > 0);
+	}
+}
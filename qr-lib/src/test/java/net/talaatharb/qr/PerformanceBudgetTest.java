@@ -0,0 +1,137 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+// Guards per-stage allocation and steady-state latency against the budgets in
+// performance-budgets.properties. Run with -Dqr.budgets.record=true to write
+// the measured values to target/ instead of failing.
+class PerformanceBudgetTest {
+
+	private static final String BUDGETS = "/performance-budgets.properties";
+	private static final String RECORD_PROPERTY = "qr.budgets.record";
+	private static final Path RECORD_FILE = Path.of("target", "performance-budgets.properties");
+	private static final String TEXT = "HELLO WORLD";
+	// Not a String, so any toString() copy on the public path shows up
+	private static final CharSequence TEXT_BUILDER = new StringBuilder(TEXT);
+	private static final int WARMUP_CALLS = 2000;
+	private static final long WARMUP_NANOS = 1_000_000_000L;
+	private static final int MEASURED_CALLS = 400;
+
+	private static final Map<String, Callable<Object>> STAGES = new LinkedHashMap<>();
+	private static final Properties BASELINE = new Properties();
+	private static final Map<String, Long> MEASURED = new TreeMap<>();
+	private static volatile Object sink;
+
+	static {
+		byte[] finalData = QRGenerator.calculateFinalData(TEXT);
+		int[][] placed = QRGenerator.placeDataInMatrix(finalData);
+		int[][] generated = QRGenerator.encode(TEXT).toMatrix();
+		var sizing = new QRSizing();
+
+		STAGES.put("measure", () -> QRCapacity.measure(TEXT, ErrorCorrectionLevel.L, sizing));
+		STAGES.put("dataCodewords", () -> QRGenerator.dataCodewords(TEXT));
+		STAGES.put("calculateFinalData", () -> QRGenerator.calculateFinalData(TEXT));
+		STAGES.put("placeDataInMatrix", () -> QRGenerator.placeDataInMatrix(finalData));
+		STAGES.put("applyMask", () -> QRGenerator.applyMask(placed));
+		STAGES.put("generate", () -> QRGenerator.encode(TEXT));
+		STAGES.put("generatePublic", () -> QRGenerator.generate(TEXT_BUILDER));
+		STAGES.put("toImage",
+				() -> QRRenderer.toImage(generated, QRRenderer.DEFAULT_SCALE, QRRenderer.DEFAULT_QUIET_ZONE));
+		STAGES.put("writePNG", () -> {
+			QRRenderer.writePNG(OutputStream.nullOutputStream(), QRRenderer.DEFAULT_SCALE, generated);
+			return generated;
+		});
+	}
+
+	@BeforeAll
+	static void loadBaseline() throws IOException {
+		try (var in = PerformanceBudgetTest.class.getResourceAsStream(BUDGETS)) {
+			assertNotNull(in, "Missing " + BUDGETS);
+			BASELINE.load(in);
+		}
+	}
+
+	@AfterAll
+	static void recordMeasurements() throws IOException {
+		if (!Boolean.getBoolean(RECORD_PROPERTY)) {
+			return;
+		}
+		Files.createDirectories(RECORD_FILE.getParent());
+		try (Writer out = Files.newBufferedWriter(RECORD_FILE)) {
+			for (var entry : MEASURED.entrySet()) {
+				out.write(entry.getKey() + "=" + entry.getValue() + System.lineSeparator());
+			}
+		}
+	}
+
+	static Stream<String> stages() {
+		return STAGES.keySet().stream();
+	}
+
+	@ParameterizedTest
+	@MethodSource("stages")
+	void testStageWithinBudget(String stage) throws Exception {
+		var threads = ManagementFactory.getThreadMXBean();
+		assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		var allocations = (com.sun.management.ThreadMXBean) threads;
+		assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+		var call = STAGES.get(stage);
+		long warmupDeadline = System.nanoTime() + WARMUP_NANOS;
+		for (int i = 0; i < WARMUP_CALLS && System.nanoTime() < warmupDeadline; i++) {
+			sink = call.call();
+		}
+
+		long threadId = Thread.currentThread().threadId();
+		long[] latencies = new long[MEASURED_CALLS];
+		long allocatedBefore = allocations.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < MEASURED_CALLS; i++) {
+			long start = System.nanoTime();
+			sink = call.call();
+			latencies[i] = System.nanoTime() - start;
+		}
+		long allocated = (allocations.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_CALLS;
+		Arrays.sort(latencies);
+		long medianNanos = latencies[MEASURED_CALLS / 2];
+
+		MEASURED.put(stage + ".allocatedBytes", allocated);
+		MEASURED.put(stage + ".medianNanos", medianNanos);
+		if (Boolean.getBoolean(RECORD_PROPERTY)) {
+			return;
+		}
+
+		long allocationBudget = budget(stage + ".allocatedBytes");
+		long latencyBudget = budget(stage + ".medianNanos");
+		assertTrue(allocated <= allocationBudget,
+				stage + " allocated " + allocated + " bytes per call, budget is " + allocationBudget);
+		assertTrue(medianNanos <= latencyBudget,
+				stage + " took " + medianNanos + " ns per call, budget is " + latencyBudget);
+	}
+
+	private static long budget(String key) {
+		String value = BASELINE.getProperty(key);
+		assertNotNull(value, "No budget recorded for " + key);
+		return Long.parseLong(value.trim());
+	}
+}
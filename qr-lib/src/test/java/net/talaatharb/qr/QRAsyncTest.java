@@ -0,0 +1,92 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QRAsyncTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testGenerateAsyncMatchesGenerate() throws Exception {
+		try (var async = new QRAsync(2)) {
+			QRCode qr = async.generateAsync(new StringBuilder("HELLO WORLD")).get();
+
+			assertArrayEquals(QRGenerator.encode("HELLO WORLD").toMatrix(), qr.toMatrix());
+		}
+	}
+
+	@Test
+	void testRenderAsyncWritesPNG() throws Exception {
+		Path file = tempDir.resolve("QR.png");
+		try (var async = new QRAsync(1)) {
+			assertEquals(file, async.renderAsync("HELLO WORLD", file).get());
+		}
+
+		assertArrayEquals(QRGenerator.encode("HELLO WORLD").toPNG(), Files.readAllBytes(file));
+	}
+
+	// Every render is chained onto its generation and nothing is joined until
+	// all 32 are submitted, so later codes generate while earlier ones write
+	@Test
+	void testPipelinedRenders() throws IOException {
+		List<CompletableFuture<Path>> writes = new ArrayList<>();
+		try (var async = new QRAsync(2)) {
+			for (int i = 0; i < 32; i++) {
+				Path path = tempDir.resolve(i + ".png");
+				writes.add(async.generateAsync("QR " + i).thenCompose(qr -> async.renderAsync(qr, path)));
+			}
+			CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+		}
+
+		for (int i = 0; i < 32; i++) {
+			Path path = tempDir.resolve(i + ".png");
+			assertEquals(path, writes.get(i).join());
+			assertArrayEquals(QRGenerator.encode("QR " + i).toPNG(), Files.readAllBytes(path));
+		}
+	}
+
+	@Test
+	void testRenderAsyncToChannel() throws Exception {
+		QRCode qr = QRGenerator.encode("A");
+		var out = new ByteArrayOutputStream();
+		try (var async = new QRAsync(1); var channel = Channels.newChannel(out)) {
+			async.renderAsync(qr, channel).get();
+		}
+
+		assertArrayEquals(qr.toPNG(), out.toByteArray());
+	}
+
+	@Test
+	void testFailuresCompleteExceptionally() {
+		try (var async = new QRAsync(1)) {
+			var invalid = assertThrows(ExecutionException.class, () -> async.generateAsync("#").get());
+			assertInstanceOf(UnsupportedOperationException.class, invalid.getCause());
+
+			Path missing = tempDir.resolve("missing").resolve("QR.png");
+			var unwritable = assertThrows(ExecutionException.class, () -> async.renderAsync("A", missing).get());
+			assertInstanceOf(IOException.class, unwritable.getCause().getCause());
+		}
+	}
+
+	@Test
+	void testRejectsInvalidPoolSize() {
+		assertThrows(IllegalArgumentException.class, () -> new QRAsync(0));
+	}
+}
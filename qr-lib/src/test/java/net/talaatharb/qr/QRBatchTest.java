@@ -0,0 +1,167 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class QRBatchTest {
+
+	private static final String[] PAYLOADS = { "HELLO WORLD", "A", "QR-JAVA 123", "$%*+-./:" };
+
+	@TempDir
+	Path tempDir;
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void testWriteAndReadBack(boolean direct) {
+		long size = QRBatchWriter.layoutSize(PAYLOADS.length);
+		var buffer = direct ? ByteBuffer.allocateDirect((int) size) : ByteBuffer.allocate((int) size);
+
+		var writer = new QRBatchWriter(buffer, PAYLOADS.length);
+		for (String payload : PAYLOADS) {
+			writer.append(payload);
+		}
+
+		var reader = new QRBatchReader(buffer);
+		assertEquals(PAYLOADS.length, reader.count());
+		for (int slot = 0; slot < PAYLOADS.length; slot++) {
+			assertArrayEquals(QRGenerator.encode(PAYLOADS[slot]).toMatrix(), reader.toMatrix(slot));
+			assertEquals(PayloadHash.of(PAYLOADS[slot]), reader.hash(slot));
+			assertEquals(slot, reader.find(PAYLOADS[slot]));
+		}
+		assertEquals(-1, reader.find("MISSING"));
+	}
+
+	@Test
+	void testMappedFile() throws IOException {
+		Path file = tempDir.resolve("codes.qrb");
+
+		var writer = new QRBatchWriter(QRBatchWriter.map(file, 2), 2);
+		writer.append("HELLO WORLD");
+
+		var reader = QRBatchReader.map(file);
+		assertEquals(1, reader.count());
+		assertEquals(QRGenerator.MATRIX_SIZE, reader.matrixSize());
+		assertArrayEquals(QRGenerator.encode("HELLO WORLD").toMatrix(), reader.toMatrix(0));
+		assertEquals((QRGenerator.MATRIX_SIZE * QRGenerator.MATRIX_SIZE + 7) / 8, reader.record(0).remaining());
+	}
+
+	@Test
+	void testAppendUtf8Slice() {
+		byte[] record = "id=HELLO WORLD;".getBytes(StandardCharsets.UTF_8);
+		var buffer = ByteBuffer.allocate((int) QRBatchWriter.layoutSize(1));
+
+		new QRBatchWriter(buffer, 1).append(record, 3, 11);
+
+		var reader = new QRBatchReader(buffer);
+		assertArrayEquals(QRGenerator.encode("HELLO WORLD").toMatrix(), reader.toMatrix(0));
+		assertEquals(0, reader.find("HELLO WORLD"));
+	}
+
+	@Test
+	void testBatchIsFull() {
+		var writer = new QRBatchWriter(ByteBuffer.allocate((int) QRBatchWriter.layoutSize(1)), 1);
+		writer.append("A");
+
+		assertThrows(IllegalStateException.class, () -> writer.append("B"));
+	}
+
+	@Test
+	void testTargetTooSmall() {
+		var buffer = ByteBuffer.allocate(QRBatchWriter.HEADER_SIZE);
+
+		assertThrows(IllegalArgumentException.class, () -> new QRBatchWriter(buffer, 1));
+	}
+
+	@Test
+	void testReaderRejectsForeignData() {
+		var buffer = ByteBuffer.allocate(64);
+
+		assertThrows(IllegalArgumentException.class, () -> new QRBatchReader(buffer));
+	}
+
+	@Test
+	void testReaderRejectsEmptySlot() {
+		var buffer = ByteBuffer.allocate((int) QRBatchWriter.layoutSize(2));
+		new QRBatchWriter(buffer, 2).append("A");
+
+		var reader = new QRBatchReader(buffer);
+		assertThrows(IndexOutOfBoundsException.class, () -> reader.toMatrix(1));
+	}
+
+	@Test
+	void testFindThroughHashTable() {
+		int capacity = 300;
+		var buffer = ByteBuffer.allocate((int) QRBatchWriter.layoutSize(capacity));
+		var writer = new QRBatchWriter(buffer, capacity);
+		for (int i = 0; i < capacity - 1; i++) {
+			writer.append("CODE " + i);
+		}
+		writer.append("CODE 7"); // a repeated payload is found at its first slot
+
+		var reader = new QRBatchReader(buffer);
+		for (int i = 0; i < capacity - 1; i++) {
+			assertEquals(i, reader.find("CODE " + i));
+		}
+		assertEquals(7, reader.find("CODE 7"));
+		assertEquals(-1, reader.find("CODE " + capacity));
+	}
+
+	@Test
+	void testReaderFollowsWriterOnAnotherThread() throws InterruptedException {
+		int capacity = 200;
+		var buffer = ByteBuffer.allocateDirect((int) QRBatchWriter.layoutSize(capacity));
+		var writer = new QRBatchWriter(buffer, capacity);
+		var reader = new QRBatchReader(buffer);
+		var appender = new Thread(() -> {
+			for (int i = 0; i < capacity; i++) {
+				writer.append("CODE " + i);
+			}
+		});
+
+		appender.start();
+		int seen = 0;
+		while (seen < capacity) {
+			int count = reader.count();
+			for (int slot = seen; slot < count; slot++) {
+				assertEquals(slot, reader.find("CODE " + slot));
+				assertArrayEquals(QRGenerator.encode("CODE " + slot).toMatrix(), reader.toMatrix(slot));
+			}
+			seen = count;
+		}
+		appender.join();
+	}
+
+	@Test
+	void testLayoutSizeDoesNotOverflow() {
+		long stride = QRBatchWriter.recordStride(QRGenerator.MATRIX_SIZE);
+
+		assertTrue(QRBatchWriter.layoutSize(Integer.MAX_VALUE) > Integer.MAX_VALUE * (stride + Long.BYTES));
+	}
+
+	@Test
+	void testRejectsMisalignedBuffer() {
+		var buffer = ByteBuffer.allocate((int) QRBatchWriter.layoutSize(1) + 1).position(1).slice();
+
+		assertThrows(IllegalArgumentException.class, () -> new QRBatchWriter(buffer, 1));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "HELLO WORLD", "café", "€ 10", "😀" })
+	void testPayloadHashMatchesUtf8Bytes(String payload) {
+		byte[] utf8 = payload.getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(PayloadHash.of(utf8, 0, utf8.length), PayloadHash.of(payload));
+	}
+}
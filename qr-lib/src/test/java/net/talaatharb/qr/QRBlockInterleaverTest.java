@@ -0,0 +1,76 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class QRBlockInterleaverTest {
+
+	@ParameterizedTest
+	@EnumSource(ErrorCorrectionLevel.class)
+	void testForkedMatchesSequentialForEveryVersion(ErrorCorrectionLevel errorCorrectionLevel) {
+		var random = new Random(errorCorrectionLevel.ordinal());
+		for (int version = QRCapacity.MIN_VERSION; version <= QRCapacity.MAX_VERSION; version++) {
+			byte[] data = new byte[QRCapacity.dataCodewords(version, errorCorrectionLevel)];
+			random.nextBytes(data);
+			byte[] expected = referenceInterleave(data, version, errorCorrectionLevel);
+
+			for (int threshold : new int[] { Integer.MAX_VALUE, QRBlockInterleaver.FORK_THRESHOLD, 0 }) {
+				assertArrayEquals(expected, QRBlockInterleaver.interleave(data, version, errorCorrectionLevel, threshold),
+						"version " + version + " threshold " + threshold);
+			}
+		}
+	}
+
+	@Test
+	void testRejectsWrongDataLength() {
+		byte[] data = new byte[QRCapacity.dataCodewords(10, ErrorCorrectionLevel.M) - 1];
+
+		assertThrows(IllegalArgumentException.class,
+				() -> QRBlockInterleaver.interleave(data, 10, ErrorCorrectionLevel.M));
+	}
+
+	// Straightforward block split, one scalar RS division per block, then the
+	// column-wise read-out of ISO/IEC 18004 section 7.6
+	private static byte[] referenceInterleave(byte[] data, int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		int blocks = QRCapacity.errorCorrectionBlocks(version, errorCorrectionLevel);
+		int ecCodewords = QRCapacity.errorCorrectionCodewordsPerBlock(version, errorCorrectionLevel);
+		int totalCodewords = QRCapacity.totalCodewords(version);
+		int shortBlocks = blocks - totalCodewords % blocks;
+		int shortDataLength = totalCodewords / blocks - ecCodewords;
+
+		List<byte[]> dataBlocks = new ArrayList<>();
+		List<byte[]> ecBlocks = new ArrayList<>();
+		for (int block = 0, offset = 0; block < blocks; block++) {
+			int length = shortDataLength + (block < shortBlocks ? 0 : 1);
+			byte[] dataBlock = Arrays.copyOfRange(data, offset, offset + length);
+			dataBlocks.add(dataBlock);
+			ecBlocks.add(ReedSolomon.generateErrorCorrectionCodewords(dataBlock, ecCodewords));
+			offset += length;
+		}
+
+		byte[] interleaved = new byte[totalCodewords];
+		int index = 0;
+		for (int i = 0; i <= shortDataLength; i++) {
+			for (byte[] dataBlock : dataBlocks) {
+				if (i < dataBlock.length) {
+					interleaved[index++] = dataBlock[i];
+				}
+			}
+		}
+		for (int i = 0; i < ecCodewords; i++) {
+			for (byte[] ecBlock : ecBlocks) {
+				interleaved[index++] = ecBlock[i];
+			}
+		}
+		return interleaved;
+	}
+}
@@ -0,0 +1,116 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class QRCapacityTest {
+
+	@ParameterizedTest
+	@CsvSource({ "1,L,26,19", "1,M,26,16", "1,Q,26,13", "1,H,26,9", "7,Q,196,88", "10,Q,346,154", "40,L,3706,2956",
+			"40,H,3706,1276" })
+	void testCodewordTables(int version, ErrorCorrectionLevel level, int total, int data) {
+		assertEquals(total, QRCapacity.totalCodewords(version));
+		assertEquals(data, QRCapacity.dataCodewords(version, level));
+		assertEquals(total - data, QRCapacity.errorCorrectionBlocks(version, level)
+				* QRCapacity.errorCorrectionCodewordsPerBlock(version, level));
+	}
+
+	// Maximum characters per version from the capacity table of the specification
+	@ParameterizedTest
+	@CsvSource({ "1,L,NUMERIC,41", "1,L,ALPHANUMERIC,25", "1,L,BYTE,17", "1,H,NUMERIC,17", "10,M,ALPHANUMERIC,311",
+			"40,L,NUMERIC,7089", "40,L,ALPHANUMERIC,4296", "40,L,BYTE,2953", "40,H,BYTE,1273" })
+	void testMaximumPayloadFillsVersionExactly(int version, ErrorCorrectionLevel level, QRMode mode, int maximum) {
+		var sizing = QRCapacity.measure(payload(mode, maximum), level);
+		assertEquals(version, sizing.getVersion());
+		assertEquals(mode, sizing.getMode());
+		assertEquals(0, sizing.getRemainingCharacters());
+
+		var overflow = QRCapacity.measure(payload(mode, maximum + 1), level);
+		assertTrue(!overflow.fits() || overflow.getVersion() > version);
+	}
+
+	@Test
+	void testMeasureHelloWorld() {
+		var sizing = QRCapacity.measure("HELLO WORLD", ErrorCorrectionLevel.L);
+
+		assertTrue(sizing.fits());
+		assertEquals(QRMode.ALPHANUMERIC, sizing.getMode());
+		assertEquals(1, sizing.getVersion());
+		assertEquals(QRGenerator.encodeAlphanumeric("HELLO WORLD").length(), sizing.getBitLength());
+		assertEquals(152 - 74, sizing.getRemainingBits());
+		assertEquals(25 - 11, sizing.getRemainingCharacters());
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0123456789,NUMERIC,10", "HELLO-123,ALPHANUMERIC,9", "Hello,BYTE,5", "café,BYTE,5",
+			"€,BYTE,3", "😀,BYTE,4", "\ud83d,BYTE,1" })
+	void testSelectsMostCompactMode(String text, QRMode mode, int characterCount) {
+		var sizing = QRCapacity.measure(text, ErrorCorrectionLevel.M);
+
+		assertEquals(mode, sizing.getMode());
+		assertEquals(characterCount, sizing.getCharacterCount());
+	}
+
+	@Test
+	void testCharacterCountWidthGrowsWithVersion() {
+		// 3000 digits need version 27+ count indicators at level H
+		var sizing = QRCapacity.measure("9".repeat(3000), ErrorCorrectionLevel.H);
+
+		assertTrue(sizing.getVersion() >= 27);
+		assertEquals(4 + 14 + 10 * 1000, sizing.getBitLength());
+	}
+
+	@Test
+	void testTooLongPayloadDoesNotFit() {
+		var sizing = QRCapacity.measure("x".repeat(3000), ErrorCorrectionLevel.L);
+
+		assertFalse(sizing.fits());
+		assertEquals(0, sizing.getVersion());
+		assertEquals(QRMode.BYTE, sizing.getMode());
+	}
+
+	// measure sizes for the whole standard, generate stays on 1-L and folds case
+	@Test
+	void testMeasureDoesNotFollowGenerateRules() {
+		var lowercase = QRCapacity.measure("hello", ErrorCorrectionLevel.L);
+		var long26 = QRCapacity.measure("A".repeat(26), ErrorCorrectionLevel.L);
+
+		assertEquals(QRMode.BYTE, lowercase.getMode());
+		assertEquals(1, QRGenerator.encode("hello").getVersion());
+		assertEquals(2, long26.getVersion());
+		assertThrows(UnsupportedOperationException.class, () -> QRGenerator.encode("A".repeat(26)));
+	}
+
+	@Test
+	void testReusesResult() {
+		var result = new QRSizing();
+
+		assertSame(result, QRCapacity.measure("HELLO", ErrorCorrectionLevel.Q, result));
+		assertEquals(ErrorCorrectionLevel.Q, result.getErrorCorrectionLevel());
+		QRCapacity.measure("x".repeat(5000), ErrorCorrectionLevel.Q, result);
+		assertFalse(result.fits());
+		assertEquals(0, result.getRemainingCharacters());
+	}
+
+	@Test
+	void testRejectsInvalidVersion() {
+		assertThrows(IllegalArgumentException.class, () -> QRCapacity.matrixSize(0));
+		assertThrows(IllegalArgumentException.class, () -> QRCapacity.dataCodewords(41, ErrorCorrectionLevel.L));
+		assertEquals(177, QRCapacity.matrixSize(40));
+	}
+
+	private static String payload(QRMode mode, int length) {
+		return switch (mode) {
+		case NUMERIC -> "7".repeat(length);
+		case ALPHANUMERIC -> "A".repeat(length);
+		default -> "a".repeat(length);
+		};
+	}
+}
@@ -0,0 +1,110 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class QRCodeTest {
+
+	private static final String TEXT = "HELLO WORLD";
+
+	@Test
+	void testCarriesSymbolMetadata() {
+		var code = QRGenerator.generate(TEXT);
+
+		assertEquals(1, code.getVersion());
+		assertEquals(ErrorCorrectionLevel.L, code.getErrorCorrectionLevel());
+		assertEquals(QRGenerator.MATRIX_SIZE, code.getSize());
+		assertEquals(List.of(new QRSegment(QRMode.ALPHANUMERIC, TEXT.length())), code.getSegments());
+		assertEquals(QRGenerator.selectMask(QRGenerator.placeDataInMatrix(QRGenerator.calculateFinalData(TEXT))),
+				code.getMaskPattern());
+	}
+
+	@Test
+	void testPackedModulesMatchMatrix() {
+		var code = QRGenerator.generate(TEXT);
+		int[][] matrix = code.toMatrix();
+
+		for (int row = 0; row < code.getSize(); row++) {
+			for (int col = 0; col < code.getSize(); col++) {
+				assertEquals(matrix[row][col] == 1, code.isDark(row, col));
+			}
+		}
+		assertEquals((code.getSize() * code.getSize() + 7) / 8, code.packedModules().remaining());
+	}
+
+	@Test
+	void testMatrixCopiesAreIndependent() {
+		var code = QRGenerator.generate(TEXT);
+		int[][] matrix = code.toMatrix();
+		matrix[0][0] ^= 1;
+
+		assertNotEquals(matrix[0][0], code.toMatrix()[0][0]);
+	}
+
+	@Test
+	void testRepresentationsAreMemoized() {
+		var code = QRGenerator.generate(TEXT);
+
+		assertSame(code.toSVG(), code.toSVG());
+		assertSame(code.toText(), code.toText());
+		assertSame(code.getMatrix(), code.getMatrix());
+		assertNotSame(code.toPNG(), code.toPNG());
+		assertArrayEquals(code.toPNG(), code.toPNG());
+	}
+
+	@Test
+	void testConcurrentCallersShareOneRendering() throws Exception {
+		var code = QRGenerator.generate(TEXT);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			Callable<String> task = code::toSVG;
+			var results = executor.invokeAll(List.of(task, task, task, task, task, task, task, task));
+			for (var result : results) {
+				assertSame(results.get(0).get(), result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testPNGDecodesToPayload() throws IOException {
+		var code = QRGenerator.generate(TEXT);
+
+		var image = ImageIO.read(new ByteArrayInputStream(code.toPNG()));
+
+		assertEquals(TEXT, QRImageReader.read(image).getText());
+	}
+
+	@Test
+	void testSVGDrawsDarkModules() {
+		var code = QRGenerator.generate(TEXT);
+		String svg = code.toSVG();
+
+		assertTrue(svg.startsWith("<svg"));
+		// Top-left finder row: seven dark modules offset by the quiet zone
+		assertTrue(svg.contains("M1 1h7v1h-7z"));
+	}
+
+	@Test
+	void testEqualityFollowsModules() {
+		assertEquals(QRGenerator.generate(TEXT), QRGenerator.generate(TEXT));
+		assertEquals(QRGenerator.generate(TEXT).hashCode(), QRGenerator.generate(TEXT).hashCode());
+		assertNotEquals(QRGenerator.generate(TEXT), QRGenerator.generate("HELLO"));
+	}
+}
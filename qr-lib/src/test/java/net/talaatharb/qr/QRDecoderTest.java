@@ -0,0 +1,88 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class QRDecoderTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "HELLO WORLD", "A", "0123456789ABCDEFGHIJKLMNO", "$%*+-./:" })
+	void testDecodesGeneratedSymbols(String text) {
+		var result = QRDecoder.decode(QRGenerator.encode(text).toMatrix());
+
+		assertEquals(text, result.getText());
+		assertEquals(1, result.getVersion());
+		assertEquals(ErrorCorrectionLevel.L, result.getErrorCorrectionLevel());
+		assertEquals(0, result.getCorrectedErrors());
+		assertEquals(3, result.getCorrectableErrors());
+	}
+
+	@Test
+	void testLowerCaseInputIsEncodedUpperCase() {
+		assertEquals("HELLO WORLD", QRDecoder.decode(QRGenerator.encode("Hello World").toMatrix()).getText());
+	}
+
+	@Test
+	void testCorrectsDamagedCodewords() {
+		int[][] modules = QRGenerator.encode("HELLO WORLD").toMatrix();
+		// Flip modules belonging to two different codewords at the bottom right
+		modules[20][20] ^= 1;
+		modules[16][20] ^= 1;
+
+		var result = QRDecoder.decode(modules);
+
+		assertEquals("HELLO WORLD", result.getText());
+		assertEquals(2, result.getCorrectedErrors());
+		assertEquals(2 / 3.0, result.errorCorrectionUsage(), 1e-9);
+	}
+
+	@Test
+	void testReadsFormatFromSecondCopy() {
+		int[][] modules = QRGenerator.encode("HELLO WORLD").toMatrix();
+		for (int col = 0; col <= 8; col++) {
+			if (col != 6) {
+				modules[8][col] ^= 1;
+			}
+		}
+
+		assertEquals("HELLO WORLD", QRDecoder.decode(modules).getText());
+	}
+
+	@Test
+	void testRejectsTooManyErrors() {
+		int[][] modules = QRGenerator.encode("HELLO WORLD").toMatrix();
+		for (int row = 9; row < 21; row++) {
+			for (int col = 9; col < 21; col++) {
+				modules[row][col] ^= 1;
+			}
+		}
+
+		assertThrows(QRDecodeException.class, () -> QRDecoder.decode(modules));
+	}
+
+	@Test
+	void testRejectsUnsupportedSize() {
+		assertThrows(QRDecodeException.class, () -> QRDecoder.decode(new int[25][25]));
+	}
+
+	@Test
+	void testReadsNumericAndByteSegments() {
+		// Numeric "123", byte "a", then the terminator
+		String bits = "0001" + "0000000011" + "0001111011" + "0100" + "00000001" + "01100001" + "0000";
+		int[] block = toInts(QRGenerator.dataBits(bits));
+
+		assertEquals("123a", QRDecoder.readSegments(block, block.length));
+	}
+
+	private static int[] toInts(byte[] bytes) {
+		int[] ints = new int[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			ints[i] = bytes[i] & 0xFF;
+		}
+		return ints;
+	}
+}
@@ -2,10 +2,17 @@ package net.talaatharb.qr;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class QRGeneratorTest {
 
@@ -72,4 +79,98 @@ class QRGeneratorTest {
 
 		assertArrayEquals(expected, dataBitsWithEC);
 	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "A", "AB", "HELLO WORLD", "hello world", "$%*+-./:", "1234567890ABCDEFGHIJKLMNO" })
+	void testSinglePassMatchesBitStringEncoding(String text) {
+		String encoded = QRGenerator.encodeAlphanumeric(text);
+		var expected = QRGenerator.padDataBits(QRGenerator.dataBits(encoded), encoded.length(),
+				QRGenerator.CODEWORDS_SIZE_BYTES);
+
+		assertArrayEquals(expected, QRGenerator.dataCodewords(text));
+	}
+
+	@Test
+	void testByteInputsMatchCharSequence() {
+		byte[] utf8 = "xxHELLO worldyy".getBytes(StandardCharsets.UTF_8);
+		var direct = ByteBuffer.allocateDirect(utf8.length).put(utf8).position(2).limit(13);
+		var expected = QRGenerator.generate(new StringBuilder("HELLO WORLD"));
+
+		assertEquals(expected, QRGenerator.generate(utf8, 2, 11));
+		assertEquals(expected, QRGenerator.generate(ByteBuffer.wrap(utf8, 2, 11)));
+		assertEquals(expected, QRGenerator.generate(direct));
+		assertEquals(2, direct.position());
+		assertEquals(11, expected.getSegments().get(0).getCharacterCount());
+	}
+
+	// Neither encoding nor the log line may copy the payload into a String
+	@Test
+	void testGenerateNeverCallsToString() {
+		String payload = "HELLO WORLD";
+		var text = new CharSequence() {
+			@Override
+			public int length() {
+				return payload.length();
+			}
+
+			@Override
+			public char charAt(int index) {
+				return payload.charAt(index);
+			}
+
+			@Override
+			public CharSequence subSequence(int start, int end) {
+				return payload.subSequence(start, end);
+			}
+
+			@Override
+			public String toString() {
+				throw new AssertionError("payload copied to a String");
+			}
+		};
+
+		assertEquals(QRGenerator.encode(payload), QRGenerator.generate(text));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "", "café", "HELLO_WORLD", "12345678901234567890123456" })
+	void testRejectsInvalidInput(String text) {
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+
+		assertNull(QRGenerator.dataCodewords(text));
+		assertNull(QRGenerator.dataCodewords(utf8, 0, utf8.length));
+		assertNull(QRGenerator.dataCodewords(ByteBuffer.wrap(utf8)));
+		assertThrows(UnsupportedOperationException.class, () -> QRGenerator.generate(utf8, 0, utf8.length));
+	}
+
+	@Test
+	void testRejectsSliceOutsideArray() {
+		byte[] payload = new byte[4];
+
+		assertThrows(IndexOutOfBoundsException.class, () -> QRGenerator.generate(payload, 2, 3));
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "9,L", "10,M", "25,Q", "40,H" })
+	void testMaskSelectionMatchesLowestPenalty(int version, ErrorCorrectionLevel errorCorrectionLevel) {
+		var layout = QRVersionLayout.of(version);
+		int size = layout.getSize();
+		int[][] qrMatrix = layout.newMatrix();
+		var random = new Random(version);
+		for (int position : layout.getDataPositions()) {
+			qrMatrix[position / size][position % size] = random.nextInt(2);
+		}
+
+		int expected = 0;
+		int lowestPenalty = Integer.MAX_VALUE;
+		for (int maskPattern = 0; maskPattern < QRMasking.MASK_PATTERNS; maskPattern++) {
+			int penalty = QRMasking.penalty(QRGenerator.applyMask(errorCorrectionLevel, maskPattern, qrMatrix));
+			if (penalty < lowestPenalty) {
+				expected = maskPattern;
+				lowestPenalty = penalty;
+			}
+		}
+
+		assertEquals(expected, QRGenerator.selectMask(errorCorrectionLevel, qrMatrix));
+	}
 }
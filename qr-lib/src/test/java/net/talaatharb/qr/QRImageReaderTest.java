@@ -0,0 +1,106 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class QRImageReaderTest {
+
+	private static final String TEXT = "HELLO WORLD";
+
+	@Test
+	void testReadsRenderedPNG() throws IOException {
+		var out = new ByteArrayOutputStream();
+		QRRenderer.writePNG(out, QRRenderer.DEFAULT_SCALE, QRGenerator.encode(TEXT).toMatrix());
+		var image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+		var result = QRImageReader.read(image);
+
+		assertEquals(TEXT, result.getText());
+		assertEquals(0.0, result.errorCorrectionUsage());
+		assertTrue(result.getDecodeNanos() > 0);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 3, 5, 8 })
+	void testReadsSmallScales(int scale) {
+		var image = QRRenderer.toImage(QRGenerator.encode(TEXT).toMatrix(), scale, QRRenderer.DEFAULT_QUIET_ZONE);
+
+		assertEquals(TEXT, QRImageReader.read(image).getText());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 90, 180, 270 })
+	void testReadsRotatedImages(int degrees) {
+		var image = QRRenderer.toImage(QRGenerator.encode(TEXT).toMatrix(), 8, QRRenderer.DEFAULT_QUIET_ZONE);
+
+		assertEquals(TEXT, QRImageReader.read(rotate(image, degrees)).getText());
+	}
+
+	@Test
+	void testReadsSlightlyRotatedImage() {
+		var image = QRRenderer.toImage(QRGenerator.encode(TEXT).toMatrix(), 10, QRRenderer.DEFAULT_QUIET_ZONE);
+
+		assertEquals(TEXT, QRImageReader.read(rotate(image, 7)).getText());
+	}
+
+	@Test
+	void testReadsNoisyGrayscaleBuffer() {
+		var image = QRRenderer.toImage(QRGenerator.encode(TEXT).toMatrix(), 6, QRRenderer.DEFAULT_QUIET_ZONE);
+		byte[] luminance = QRImageReader.luminance(image);
+		var random = new Random(42);
+		for (int i = 0; i < luminance.length; i++) {
+			// Low contrast print with noise: dark ~60, light ~190
+			int value = (luminance[i] & 0xFF) > 127 ? 190 : 60;
+			luminance[i] = (byte) (value + random.nextInt(41) - 20);
+		}
+
+		assertEquals(TEXT, QRImageReader.read(luminance, image.getWidth(), image.getHeight()).getText());
+	}
+
+	@Test
+	void testRejectsImageWithoutCode() {
+		var image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+		var graphics = image.createGraphics();
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(0, 0, 200, 200);
+		graphics.dispose();
+
+		assertThrows(QRDecodeException.class, () -> QRImageReader.read(image));
+	}
+
+	@Test
+	void testRejectsShortBuffer() {
+		assertThrows(IllegalArgumentException.class, () -> QRImageReader.read(new byte[10], 10, 10));
+	}
+
+	private static BufferedImage rotate(BufferedImage image, double degrees) {
+		int size = image.getWidth();
+		int canvas = (int) (size * 1.5);
+		var rotated = new BufferedImage(canvas, canvas, BufferedImage.TYPE_INT_RGB);
+		var graphics = rotated.createGraphics();
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(0, 0, canvas, canvas);
+		var transform = new AffineTransform();
+		transform.rotate(Math.toRadians(degrees), canvas / 2.0, canvas / 2.0);
+		transform.translate((canvas - size) / 2.0, (canvas - size) / 2.0);
+		graphics.drawImage(image, new AffineTransformOp(transform, AffineTransformOp.TYPE_NEAREST_NEIGHBOR), 0, 0);
+		graphics.dispose();
+		return rotated;
+	}
+}
@@ -0,0 +1,96 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class QRMaskingTest {
+
+	private static final Random RANDOM = new Random();
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1, 2, 3, 4, 5, 6, 7 })
+	void testFlipTablesMatchMaskPredicate(int maskPattern) {
+		int[][] qrMatrix = randomMatrix(QRGenerator.MATRIX_SIZE);
+
+		var expected = QRGenerator.applyMask(maskPattern, qrMatrix, QRGenerator::isReservedArea);
+
+		assertArrayEquals(expected, QRMasking.applyMask(maskPattern, qrMatrix));
+	}
+
+	@Test
+	void testVectorScansMatchScalarScans() {
+		if (!VectorSupport.isAvailable()) {
+			return;
+		}
+		int[][] qrMatrix = randomMatrix(QRGenerator.MATRIX_SIZE);
+
+		assertEquals(QRMasking.countUniformBlocks(qrMatrix), VectorMasking.countUniformBlocks(qrMatrix));
+		assertEquals(QRMasking.countDarkModules(qrMatrix), VectorMasking.countDarkModules(qrMatrix));
+	}
+
+	@Test
+	void testRunPenalty() {
+		int[][] qrMatrix = { { 1, 1, 1, 1, 1, 1 }, { 0, 1, 0, 1, 0, 1 }, { 1, 0, 1, 0, 1, 0 }, { 0, 1, 0, 1, 0, 1 },
+				{ 1, 0, 1, 0, 1, 0 }, { 0, 1, 0, 1, 0, 1 } };
+
+		// One row run of six modules
+		assertEquals(QRMasking.PENALTY_RUN + 1, QRMasking.runPenalty(qrMatrix));
+	}
+
+	@Test
+	void testBlockPenalty() {
+		int[][] qrMatrix = { { 1, 1, 0 }, { 1, 1, 1 }, { 0, 1, 1 } };
+
+		assertEquals(2 * QRMasking.PENALTY_BLOCK, QRMasking.blockPenalty(qrMatrix));
+	}
+
+	@Test
+	void testFinderLikePenalty() {
+		int[][] qrMatrix = new int[11][11];
+		qrMatrix[0] = new int[] { 1, 0, 1, 1, 1, 0, 1, 0, 0, 0, 0 };
+
+		assertEquals(QRMasking.PENALTY_FINDER_LIKE, QRMasking.finderLikePenalty(qrMatrix));
+	}
+
+	@Test
+	void testBalancePenalty() {
+		int[][] allLight = new int[10][10];
+		int[][] halfDark = new int[10][10];
+		for (int row = 0; row < 5; row++) {
+			halfDark[row] = new int[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 };
+		}
+
+		assertEquals(10 * QRMasking.PENALTY_BALANCE, QRMasking.balancePenalty(allLight));
+		assertEquals(0, QRMasking.balancePenalty(halfDark));
+	}
+
+	@Test
+	void testGenerateSelectsLowestPenaltyMask() {
+		var generated = QRGenerator.generate("HELLO WORLD").toMatrix();
+		var placed = QRGenerator.placeDataInMatrix(QRGenerator.calculateFinalData("HELLO WORLD"));
+		int chosenPenalty = QRMasking.penalty(generated);
+
+		for (int maskPattern = 0; maskPattern < QRMasking.MASK_PATTERNS; maskPattern++) {
+			int[][] candidate = QRMasking.applyMask(maskPattern, placed);
+			QRGenerator.addErrorCorrectionAndMaskInfo(0, maskPattern, candidate);
+			assertTrue(chosenPenalty <= QRMasking.penalty(candidate));
+		}
+	}
+
+	private static int[][] randomMatrix(int size) {
+		int[][] qrMatrix = new int[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				qrMatrix[row][col] = RANDOM.nextInt(2);
+			}
+		}
+		return qrMatrix;
+	}
+}
@@ -0,0 +1,166 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QRPackTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testWriteAndFindByPayload() throws IOException {
+		Path file = tempDir.resolve("codes.qrpack");
+		try (var writer = QRPackWriter.create(file)) {
+			writer.add("HELLO WORLD");
+			writer.add("A");
+			writer.add("QR 123");
+		}
+
+		var reader = QRPackReader.open(file);
+		assertEquals(3, reader.size());
+		for (int i = 1; i < reader.size(); i++) {
+			assertTrue(reader.hash(i - 1) < reader.hash(i));
+		}
+
+		var image = reader.find("HELLO WORLD");
+		assertNotNull(image);
+		byte[] png = new byte[image.remaining()];
+		image.get(png);
+		var decoded = ImageIO.read(new ByteArrayInputStream(png));
+		assertEquals((QRGenerator.MATRIX_SIZE + 2) * QRRenderer.DEFAULT_SCALE, decoded.getWidth());
+
+		assertNull(reader.find("MISSING"));
+	}
+
+	@Test
+	void testAppendKeepsExistingEntries() throws IOException {
+		Path file = tempDir.resolve("codes.qrpack");
+		try (var writer = QRPackWriter.create(file)) {
+			writer.add(1L, bytes("first"));
+		}
+		try (var writer = QRPackWriter.append(file)) {
+			writer.add(2L, bytes("second"));
+		}
+
+		var reader = QRPackReader.open(file);
+		assertEquals(2, reader.size());
+		assertEquals(bytes("first"), reader.find(1L));
+		assertEquals(bytes("second"), reader.find(2L));
+	}
+
+	@Test
+	void testInterruptedAppendKeepsPreviousIndex() throws IOException {
+		Path file = tempDir.resolve("codes.qrpack");
+		try (var writer = QRPackWriter.create(file)) {
+			writer.add(1L, bytes("first"));
+		}
+
+		try (var writer = QRPackWriter.append(file)) {
+			writer.add(2L, bytes("second"));
+			// What a crash before close() would leave: new bytes, old header pointer
+			var reader = QRPackReader.open(file);
+			assertEquals(1, reader.size());
+			assertEquals(bytes("first"), reader.find(1L));
+			assertNull(reader.find(2L));
+		}
+
+		assertEquals(2, QRPackReader.open(file).size());
+	}
+
+	@Test
+	void testIndexSpanningSeveralBatches() throws IOException {
+		Path file = tempDir.resolve("codes.qrpack");
+		int entries = QRPackWriter.INDEX_BATCH_ENTRIES * 2 + 7;
+		try (var writer = QRPackWriter.create(file)) {
+			for (long key = 0; key < entries; key++) {
+				writer.add(key, bytes(Long.toString(key)));
+			}
+		}
+		try (var writer = QRPackWriter.append(file)) {
+			writer.add(entries, bytes("last"));
+		}
+
+		var reader = QRPackReader.open(file);
+		assertEquals(entries + 1, reader.size());
+		for (long key = 0; key < entries; key++) {
+			assertEquals(bytes(Long.toString(key)), reader.find(key));
+		}
+		assertEquals(bytes("last"), reader.find(entries));
+	}
+
+	// Tiny mapping windows stand in for packs beyond 2 GB: index entries and
+	// images straddle window boundaries
+	@Test
+	void testReadsAcrossMappingWindows() throws IOException {
+		Path file = tempDir.resolve("codes.qrpack");
+		try (var writer = QRPackWriter.create(file)) {
+			for (long key = 0; key < 300; key++) {
+				writer.add(key, bytes("image " + "#".repeat((int) key % 40) + key));
+			}
+		}
+
+		var reader = QRPackReader.open(file, 64, 64);
+		assertEquals(300, reader.size());
+		for (long key = 0; key < 300; key++) {
+			assertEquals(bytes("image " + "#".repeat((int) key % 40) + key), reader.find(key));
+		}
+	}
+
+	@Test
+	void testDuplicateKeysKeepFirstImage() throws IOException {
+		Path file = tempDir.resolve("codes.qrpack");
+		var writer = QRPackWriter.create(file);
+		try (writer) {
+			for (long key = 100; key > 0; key--) {
+				writer.add(key, bytes("image " + key));
+			}
+			writer.add(42L, bytes("duplicate"));
+			assertEquals(101, writer.size());
+		}
+
+		assertEquals(100, writer.size());
+
+		var reader = QRPackReader.open(file);
+		assertEquals(100, reader.size());
+		assertEquals(bytes("image 42"), reader.find(42L));
+	}
+
+	@Test
+	void testEmptyPack() throws IOException {
+		Path file = tempDir.resolve("empty.qrpack");
+		QRPackWriter.create(file).close();
+
+		var reader = QRPackReader.open(file);
+		assertEquals(0, reader.size());
+		assertNull(reader.find(0L));
+	}
+
+	@Test
+	void testRejectsForeignFile() throws IOException {
+		Path file = tempDir.resolve("foreign.bin");
+		Files.write(file, new byte[64]);
+
+		assertThrows(IllegalArgumentException.class, () -> QRPackReader.open(file));
+		assertThrows(IOException.class, () -> QRPackWriter.append(file));
+	}
+
+	private static ByteBuffer bytes(String text) {
+		return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,45 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class QRRendererTest {
+
+	private static final int BLACK = 0xFF000000;
+	private static final int WHITE = 0xFFFFFFFF;
+
+	@ParameterizedTest
+	@CsvSource({ "1,0", "3,4", "5,1", "8,2", "16,1", "13,3" })
+	void testImageMatchesModules(int scale, int quietZone) {
+		int[][] qrMatrix = QRGenerator.encode("HELLO WORLD").toMatrix();
+		int matrixSize = qrMatrix.length;
+
+		BufferedImage image = QRRenderer.toImage(qrMatrix, scale, quietZone);
+
+		assertEquals(BufferedImage.TYPE_BYTE_BINARY, image.getType());
+		assertEquals((matrixSize + 2 * quietZone) * scale, image.getWidth());
+		assertEquals(image.getWidth(), image.getHeight());
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				int row = y / scale - quietZone;
+				int col = x / scale - quietZone;
+				boolean inside = row >= 0 && row < matrixSize && col >= 0 && col < matrixSize;
+				int expected = inside && qrMatrix[row][col] == 1 ? BLACK : WHITE;
+				assertEquals(expected, image.getRGB(x, y), "pixel " + x + "," + y);
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0,1", "-1,1", "4,-1" })
+	void testRejectsInvalidGeometry(int scale, int quietZone) {
+		int[][] qrMatrix = QRGenerator.encode("A").toMatrix();
+
+		assertThrows(IllegalArgumentException.class, () -> QRRenderer.toImage(qrMatrix, scale, quietZone));
+	}
+}
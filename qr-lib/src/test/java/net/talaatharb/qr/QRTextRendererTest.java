@@ -0,0 +1,101 @@
+package net.talaatharb.qr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class QRTextRendererTest {
+
+	private static final String ANSI_COLORS = "\u001B[30;107m";
+	private static final String ANSI_RESET = "\u001B[0m";
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1, 2, 4 })
+	void testHalfBlocksMatchModules(int quietZone) {
+		QRCode qr = QRGenerator.encode("HELLO WORLD");
+		int width = qr.getSize() + 2 * quietZone;
+
+		String[] lines = new QRTextRenderer(quietZone, false).render(qr).split(System.lineSeparator());
+
+		assertEquals((width + 1) / 2, lines.length);
+		for (int line = 0; line < lines.length; line++) {
+			assertEquals(width, lines[line].length());
+			for (int x = 0; x < width; x++) {
+				char glyph = lines[line].charAt(x);
+				assertEquals(isDark(qr, 2 * line - quietZone, x - quietZone), glyph == '▀' || glyph == '█');
+				assertEquals(isDark(qr, 2 * line + 1 - quietZone, x - quietZone), glyph == '▄' || glyph == '█');
+			}
+		}
+	}
+
+	@Test
+	void testDecodesFromText() {
+		QRCode qr = QRGenerator.generateGS1("(01)09506000134352(10)ABC123");
+		String[] lines = new QRTextRenderer(0, false).render(qr).split(System.lineSeparator());
+
+		int[][] modules = new int[qr.getSize()][qr.getSize()];
+		for (int row = 0; row < qr.getSize(); row++) {
+			for (int col = 0; col < qr.getSize(); col++) {
+				char glyph = lines[row / 2].charAt(col);
+				boolean dark = row % 2 == 0 ? glyph == '▀' || glyph == '█' : glyph == '▄' || glyph == '█';
+				modules[row][col] = dark ? 1 : 0;
+			}
+		}
+
+		assertEquals("0109506000134352" + "10ABC123", QRDecoder.decode(modules).getText());
+	}
+
+	@Test
+	void testAnsiColoursEveryLine() {
+		QRCode qr = QRGenerator.encode("A");
+		String plain = new QRTextRenderer().render(qr);
+
+		String[] lines = new QRTextRenderer(QRTextRenderer.DEFAULT_QUIET_ZONE, true).render(qr)
+				.split(System.lineSeparator());
+
+		String[] plainLines = plain.split(System.lineSeparator());
+		assertEquals(plainLines.length, lines.length);
+		for (int line = 0; line < lines.length; line++) {
+			assertEquals(ANSI_COLORS + plainLines[line] + ANSI_RESET, lines[line]);
+		}
+	}
+
+	@Test
+	void testWritersMatchRenderAcrossSizes() throws IOException {
+		var renderer = new QRTextRenderer(1, true);
+		QRCode small = QRGenerator.encode("A");
+		QRCode large = QRGenerator.generateGS1("(01)09506000134352(21)" + "X".repeat(20) + "(240)" + "Y".repeat(30));
+		var bytes = new ByteArrayOutputStream();
+		var out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+		var writer = new StringWriter();
+
+		for (QRCode qr : new QRCode[] { small, large, small }) {
+			renderer.write(qr, out);
+			renderer.write(qr, writer);
+		}
+
+		String expected = renderer.render(small) + renderer.render(large) + renderer.render(small);
+		assertEquals(expected, bytes.toString(StandardCharsets.UTF_8));
+		assertEquals(expected, writer.toString());
+		assertTrue(large.getSize() > small.getSize());
+	}
+
+	@Test
+	void testRejectsNegativeQuietZone() {
+		assertThrows(IllegalArgumentException.class, () -> new QRTextRenderer(-1, false));
+	}
+
+	private static boolean isDark(QRCode qr, int row, int col) {
+		return row >= 0 && row < qr.getSize() && col >= 0 && col < qr.getSize() && qr.isDark(row, col);
+	}
+}
@@ -2,6 +2,7 @@ package net.talaatharb.qr;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Random;
 
@@ -65,6 +66,24 @@ class ReedSolomonTest {
 		assertArrayEquals(new int[] { 1, 127, 122, 154, 164, 11, 68, 117 }, generator);
 	}
 
+	@Test
+	void testPrecomputedGeneratorsMatchCalculated() {
+		for (int degree = 0; degree <= 30; degree++) {
+			assertArrayEquals(ReedSolomon.calculateGenerator(degree), ReedSolomon.generator(degree));
+		}
+		assertArrayEquals(ReedSolomon.calculateGenerator(40), ReedSolomon.generator(40));
+	}
+
+	@Test
+	void testPrecomputedFieldTables() {
+		for (int x = 1; x < ReedSolomon.GF_SIZE; x++) {
+			assertEquals(x, ReedSolomon.EXP_TABLE[ReedSolomon.LOG_TABLE[x]]);
+		}
+		for (int i = 0; i < ReedSolomon.GF_SIZE; i++) {
+			assertEquals(ReedSolomon.EXP_TABLE[i], ReedSolomon.EXP_TABLE[i + ReedSolomon.GF_SIZE]);
+		}
+	}
+
 	@Test
 	void testGenerateErrorCorrectionCodewords() {
 		Integer codeWordCount = QRGenerator.CODE_WORD_COUNT;
@@ -78,4 +97,88 @@ class ReedSolomonTest {
 				(byte) 195, (byte) 109 }, errorCorrectionCodeWords);
 	}
 
+	@Test
+	void testBatchErrorCorrectionMatchesSingleMessages() {
+		Integer codeWordCount = QRGenerator.CODE_WORD_COUNT;
+		byte[][] messages = new byte[37][QRGenerator.CODEWORDS_SIZE_BYTES];
+		for (byte[] message : messages) {
+			RANDOM.nextBytes(message);
+		}
+
+		var batch = ReedSolomon.generateErrorCorrectionCodewords(messages, codeWordCount);
+
+		assertEquals(messages.length, batch.length);
+		for (int i = 0; i < messages.length; i++) {
+			assertArrayEquals(ReedSolomon.generateErrorCorrectionCodewords(messages[i], codeWordCount), batch[i]);
+		}
+	}
+
+	@Test
+	void testBatchErrorCorrectionWithMixedLengths() {
+		byte[][] messages = new byte[][] { { 1, 2, 3 }, { 4, 5 }, { 6 } };
+
+		var batch = ReedSolomon.generateErrorCorrectionCodewords(messages, 10);
+
+		for (int i = 0; i < messages.length; i++) {
+			assertArrayEquals(ReedSolomon.generateErrorCorrectionCodewords(messages[i], 10), batch[i]);
+		}
+	}
+
+	@Test
+	void testCorrectErrorsOnCleanBlock() {
+		int[] block = helloWorldBlock();
+
+		assertEquals(0, ReedSolomon.correctErrors(block, QRGenerator.CODE_WORD_COUNT));
+		assertArrayEquals(helloWorldBlock(), block);
+	}
+
+	@Test
+	void testCorrectErrorsUpToCapacity() {
+		int[] block = helloWorldBlock();
+		block[0] ^= 0x5A;
+		block[10] ^= 0x01;
+		block[25] ^= 0xFF;
+
+		assertEquals(3, ReedSolomon.correctErrors(block, QRGenerator.CODE_WORD_COUNT));
+		assertArrayEquals(helloWorldBlock(), block);
+	}
+
+	@Test
+	void testCorrectErrorsRandomPositions() {
+		int numCodewords = 16;
+		byte[] data = new byte[40];
+		RANDOM.nextBytes(data);
+		byte[] ec = ReedSolomon.generateErrorCorrectionCodewords(data, numCodewords);
+		int[] expected = new int[data.length + numCodewords];
+		for (int i = 0; i < data.length; i++) {
+			expected[i] = data[i] & 0xFF;
+		}
+		for (int i = 0; i < numCodewords; i++) {
+			expected[data.length + i] = ec[i] & 0xFF;
+		}
+
+		int[] block = expected.clone();
+		for (int i = 0; i < numCodewords / 2; i++) {
+			block[RANDOM.nextInt(block.length)] = RANDOM.nextInt(256);
+		}
+
+		assertTrue(ReedSolomon.correctErrors(block, numCodewords) >= 0);
+		assertArrayEquals(expected, block);
+	}
+
+	@Test
+	void testCorrectErrorsBeyondCapacity() {
+		int[] block = helloWorldBlock();
+		for (int i = 0; i < 5; i++) {
+			block[i * 5] ^= 0x33;
+		}
+
+		assertEquals(-1, ReedSolomon.correctErrors(block, QRGenerator.CODE_WORD_COUNT));
+	}
+
+	private static int[] helloWorldBlock() {
+		return new int[] { 32, 91, 11, 120, 209, 114, 220, 77, 67, 64, 236, 17, 236, 17, 236, 17, 236, 17, 236, 209,
+				239, 196, 207, 78, 195, 109 }; // HELLO WORLD + padding + EC
+	}
+
 }